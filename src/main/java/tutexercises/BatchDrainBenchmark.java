@@ -0,0 +1,109 @@
+package tutexercises;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import tuts.common.BatchingCompletionService;
+
+/**
+ * Mide cuántos resultados por segundo recoge un consumidor:
+ * <ul>
+ *   <li>TAKE: `ExecutorCompletionService.take()`, un resultado cada vez (como en
+ *       `ReturningValuesUsingExecutors_SecondTechnique`).</li>
+ *   <li>DRAIN: `BatchingCompletionService.drainTo()`, todo lo que haya de una vez, y
+ *       `takeBatch()` solo cuando no hay nada.</li>
+ * </ul>
+ * Un hilo aparte envía las tareas (muy cortas) mientras el consumidor las recoge, así que
+ * el consumidor compite con los hilos del pool que las van terminando.
+ */
+public class BatchDrainBenchmark {
+
+    private static final int POOL_SIZE = 4;
+    private static final int TASKS = 1_000_000;
+    private static final int MAX_BATCH = 256;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws Exception {
+        // Pasadas previas para que el JIT compile ambos caminos.
+        runTest(false);
+        runTest(true);
+
+        System.out.println("=======================================================");
+        System.out.println(" CONSUMER     RESULTS/S (BEST OF " + ROUNDS + ")   NS/RESULT");
+        System.out.println("=======================================================");
+        for (boolean batching : new boolean[] {false, true}) {
+            double best = 0;
+            for (int round = 0; round < ROUNDS; round++) {
+                best = Math.max(best, runTest(batching));
+            }
+            System.out.printf(" %-12s %-25.0f %.1f%n", batching ? "DRAIN" : "TAKE", best, 1e9 / best);
+        }
+        System.out.println("=======================================================");
+        System.out.println(TASKS + " tiny tasks, batches of up to " + MAX_BATCH + ", " + POOL_SIZE + " workers, "
+                + Runtime.getRuntime().availableProcessors() + " CPU(s)");
+    }
+
+    /**
+     * @return Resultados recogidos por segundo.
+     */
+    private static double runTest(boolean batching) throws Exception {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>());
+        pool.prestartAllCoreThreads();
+        CompletionService<Integer> service = batching
+                ? new BatchingCompletionService<>(pool)
+                : new ExecutorCompletionService<>(pool);
+
+        Callable<Integer> task = () -> 1;
+        Thread submitter = new Thread(() -> {
+            for (int i = 0; i < TASKS; i++) {
+                service.submit(task);
+            }
+        }, "Submitter");
+
+        long start = System.nanoTime();
+        submitter.start();
+        long sum = batching ? consumeInBatches((BatchingCompletionService<Integer>) service) : consumeOneByOne(service);
+        long elapsed = System.nanoTime() - start;
+
+        submitter.join();
+        pool.shutdown();
+        if (sum != TASKS) {
+            throw new IllegalStateException("Wrong sum: " + sum);
+        }
+        return TASKS / (elapsed / 1e9);
+    }
+
+    private static long consumeOneByOne(CompletionService<Integer> service) throws Exception {
+        long sum = 0;
+        for (int i = 0; i < TASKS; i++) {
+            sum += service.take().get();
+        }
+        return sum;
+    }
+
+    private static long consumeInBatches(BatchingCompletionService<Integer> service) throws Exception {
+        List<Future<Integer>> batch = new ArrayList<>(MAX_BATCH);
+        long sum = 0;
+        int received = 0;
+        while (received < TASKS) {
+            batch.clear();
+            if (service.drainTo(batch, MAX_BATCH) == 0) {
+                // No hay nada: se espera a que llegue al menos uno.
+                batch.addAll(service.takeBatch(1, 1, TimeUnit.SECONDS));
+            }
+            for (Future<Integer> future : batch) {
+                sum += future.get();
+            }
+            received += batch.size();
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,78 @@
+package tutexercises;
+
+import java.math.BigInteger;
+import java.util.concurrent.ForkJoinPool;
+
+import tuts.common.BigFactorialTask;
+
+/**
+ * Compara el tiempo de calcular n! (n = 10^4, 10^5 y 10^6) de tres formas:
+ * <ul>
+ *   <li>LOOP: un bucle secuencial, 1 * 2 * 3 * ... * n con `BigInteger`, como el de
+ *       `FactorialTaskB` pero sin desbordarse.</li>
+ *   <li>TREE: `BigFactorialTask` con el árbol de productos.</li>
+ *   <li>SWING: `BigFactorialTask` con el algoritmo "prime swing".</li>
+ * </ul>
+ * Se comprueba que los tres dan el mismo resultado. El bucle con n = 10^6 tarda mucho, así que
+ * se mide una sola vez.
+ */
+public class BigFactorialBenchmark {
+
+    private static final int[] SIZES = {10_000, 100_000, 1_000_000};
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) throws Exception {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        // Pasadas previas para que el JIT compile los tres caminos.
+        for (int i = 0; i < 3; i++) {
+            loop(20_000);
+            new BigFactorialTask(20_000, false, pool).call();
+            new BigFactorialTask(20_000, true, pool).call();
+        }
+
+        System.out.println("================================================================");
+        System.out.println(" N            LOOP MS        TREE MS        SWING MS      BITS");
+        System.out.println("================================================================");
+        for (int n : SIZES) {
+            long loopBest = Long.MAX_VALUE;
+            long treeBest = Long.MAX_VALUE;
+            long swingBest = Long.MAX_VALUE;
+            BigInteger expected = null;
+            for (int round = 0; round < ROUNDS; round++) {
+                if (round == 0 || n < 1_000_000) {
+                    long start = System.nanoTime();
+                    expected = loop(n);
+                    loopBest = Math.min(loopBest, millisSince(start));
+                }
+
+                long start = System.nanoTime();
+                BigInteger tree = new BigFactorialTask(n, false, pool).call();
+                treeBest = Math.min(treeBest, millisSince(start));
+
+                start = System.nanoTime();
+                BigInteger swing = new BigFactorialTask(n, true, pool).call();
+                swingBest = Math.min(swingBest, millisSince(start));
+
+                if (!tree.equals(expected) || !swing.equals(expected)) {
+                    throw new IllegalStateException("Wrong result for " + n + "!");
+                }
+            }
+            System.out.printf(" %-12d %-14d %-14d %-13d %d%n", n, loopBest, treeBest, swingBest, expected.bitLength());
+        }
+        System.out.println("================================================================");
+        System.out.println("Best of " + ROUNDS + " (LOOP at 10^6: 1 run), pool parallelism " + pool.getParallelism()
+                + ", " + Runtime.getRuntime().availableProcessors() + " CPU(s)");
+    }
+
+    private static BigInteger loop(int n) {
+        BigInteger factorial = BigInteger.ONE;
+        for (int i = 2; i <= n; i++) {
+            factorial = factorial.multiply(BigInteger.valueOf(i));
+        }
+        return factorial;
+    }
+
+    private static long millisSince(long start) {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
@@ -0,0 +1,141 @@
+package tutexercises;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import tuts.common.IntCallable;
+import tuts.common.IntFuture;
+import tuts.common.PrimitiveCompletionService;
+import tuts.common.TaskResult;
+
+/**
+ * Compara la memoria reservada por cálculo en dos caminos:
+ * <ul>
+ *   <li>TASKRESULT: el del tut3, un `ExecutorCompletionService` con tareas que devuelven un
+ *       `TaskResult<String, Integer>`, como `CalculationTaskB` (pero sin pausas ni mensajes).</li>
+ *   <li>PRIMITIVE: un `PrimitiveCompletionService` con tareas `IntCallable`.</li>
+ * </ul>
+ * Las sumas dan resultados mayores que 127, así que la JVM no puede reutilizar los `Integer`
+ * de su caché. Los ids de las tareas se crean antes de medir, para comparar solo el camino
+ * del resultado. Se mide la memoria de todos los hilos (el que envía y los del pool).
+ */
+public class BoxingBenchmark {
+
+    private static final int POOL_SIZE = 4;
+    private static final int TASKS = 1_000_000;
+    private static final int BATCH = 1_000;
+    private static final int ROUNDS = 5;
+
+    private static final String[] TASK_IDS = new String[BATCH];
+
+    public static void main(String[] args) throws Exception {
+        for (int i = 0; i < BATCH; i++) {
+            TASK_IDS[i] = "CalculationTask-" + i;
+        }
+        // Pasadas previas para que el JIT compile ambos caminos.
+        runTest(false);
+        runTest(true);
+
+        System.out.println("==================================================");
+        System.out.println(" PATH         NS/TASK (BEST OF " + ROUNDS + ")   BYTES/TASK");
+        System.out.println("==================================================");
+        double[] boxed = best(false);
+        double[] primitive = best(true);
+        System.out.printf(" %-12s %-22.1f %.1f%n", "TASKRESULT", boxed[0], boxed[1]);
+        System.out.printf(" %-12s %-22.1f %.1f%n", "PRIMITIVE", primitive[0], primitive[1]);
+        System.out.println("==================================================");
+        System.out.println(TASKS + " additions in batches of " + BATCH + ", " + POOL_SIZE + " workers, "
+                + Runtime.getRuntime().availableProcessors() + " CPU(s)");
+    }
+
+    private static double[] best(boolean primitive) throws Exception {
+        double[] best = {Double.MAX_VALUE, Double.MAX_VALUE};
+        for (int round = 0; round < ROUNDS; round++) {
+            double[] result = runTest(primitive);
+            best[0] = Math.min(best[0], result[0]);
+            best[1] = Math.min(best[1], result[1]);
+        }
+        return best;
+    }
+
+    /**
+     * @return {nanosegundos por tarea, bytes reservados por tarea}.
+     */
+    private static double[] runTest(boolean primitive) throws Exception {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>());
+        pool.prestartAllCoreThreads();
+
+        com.sun.management.ThreadMXBean threadBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long[] threadIds = threadBean.getAllThreadIds();
+        long allocatedBefore = sum(threadBean.getThreadAllocatedBytes(threadIds));
+        long start = System.nanoTime();
+
+        long checksum = primitive ? runPrimitive(pool) : runBoxed(pool);
+
+        long elapsed = System.nanoTime() - start;
+        long allocatedAfter = sum(threadBean.getThreadAllocatedBytes(threadIds));
+        pool.shutdown();
+        if (checksum != expectedChecksum()) {
+            throw new IllegalStateException("Wrong checksum: " + checksum);
+        }
+        return new double[]{elapsed / (double) TASKS, (allocatedAfter - allocatedBefore) / (double) TASKS};
+    }
+
+    private static long runBoxed(ThreadPoolExecutor pool) throws InterruptedException, ExecutionException {
+        CompletionService<TaskResult<String, Integer>> service = new ExecutorCompletionService<>(pool);
+        long checksum = 0;
+        for (int done = 0; done < TASKS; done += BATCH) {
+            for (int i = 0; i < BATCH; i++) {
+                String taskId = TASK_IDS[i];
+                int a = 1000 + i;
+                int b = done;
+                service.submit(() -> new TaskResult<>(taskId, a + b));
+            }
+            for (int i = 0; i < BATCH; i++) {
+                checksum += service.take().get().result;
+            }
+        }
+        return checksum;
+    }
+
+    private static long runPrimitive(ThreadPoolExecutor pool) throws InterruptedException, ExecutionException {
+        PrimitiveCompletionService<IntCallable, IntFuture> service = PrimitiveCompletionService.ofInt(pool);
+        long checksum = 0;
+        for (int done = 0; done < TASKS; done += BATCH) {
+            for (int i = 0; i < BATCH; i++) {
+                int a = 1000 + i;
+                int b = done;
+                service.submit(() -> a + b);
+            }
+            for (int i = 0; i < BATCH; i++) {
+                checksum += service.take().getInt();
+            }
+        }
+        return checksum;
+    }
+
+    private static long expectedChecksum() {
+        long checksum = 0;
+        for (int done = 0; done < TASKS; done += BATCH) {
+            for (int i = 0; i < BATCH; i++) {
+                checksum += 1000 + i + done;
+            }
+        }
+        return checksum;
+    }
+
+    private static long sum(long[] values) {
+        long total = 0;
+        for (long value : values) {
+            total += Math.max(0, value);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,121 @@
+package tutexercises;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.lang.Thread.UncaughtExceptionHandler;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import tuts.common.ExceptionReportPipeline;
+import tuts.common.NotificationSink;
+import tuts.common.ThreadExceptionNotifier;
+
+/**
+ * Una "tormenta" de fallos: muchos hilos mueren a la vez por la misma excepción.
+ *
+ * Compara lo que tarda cada hilo en su manejador de excepciones:
+ * <ul>
+ *   <li>SYNC: el `ThreadExceptionNotifier` original, que monta el email y lo imprime por
+ *       consola desde el propio hilo que muere.</li>
+ *   <li>ASYNC: el `ThreadExceptionNotifier` actual, que deja el fallo en el buffer de un
+ *       `ExceptionReportPipeline` y vuelve; el hilo de fondo agrupa y escribe los lotes.</li>
+ * </ul>
+ * La salida estándar va a un fichero temporal para no inundar la consola.
+ */
+public class ExceptionStormBenchmark {
+
+    private static final int THREADS = 4_096;
+    private static final int CONCURRENT = 64;
+    private static final int BUFFER_CAPACITY = 1024;
+
+    public static void main(String[] args) throws Exception {
+        PrintStream console = System.out;
+        File stdoutFile = File.createTempFile("exception-storm", ".out");
+        Path sinkFile = Files.createTempFile("exception-storm", ".log");
+        stdoutFile.deleteOnExit();
+        sinkFile.toFile().deleteOnExit();
+
+        try (PrintStream redirected = new PrintStream(new FileOutputStream(stdoutFile), true)) {
+            System.setOut(redirected);
+            // Una ronda de cada para calentar.
+            runStorm(new SynchronousNotifier());
+            ExceptionReportPipeline warmUpPipeline = ExceptionReportPipeline.start(NotificationSink.toFile(sinkFile), BUFFER_CAPACITY);
+            runStorm(new ThreadExceptionNotifier(warmUpPipeline));
+            warmUpPipeline.close();
+
+            String sync = runStorm(new SynchronousNotifier());
+            ExceptionReportPipeline pipeline = ExceptionReportPipeline.start(NotificationSink.toFile(sinkFile), BUFFER_CAPACITY);
+            String async = runStorm(new ThreadExceptionNotifier(pipeline));
+            pipeline.close();
+
+            System.setOut(console);
+            System.out.println("=====================================================================");
+            System.out.println(" MODE    WALL TIME   AVG HANDLER   DELIVERED   DROPPED");
+            System.out.println("=====================================================================");
+            System.out.println(String.format(" %-7s %s   %-11d %-9d", "SYNC", sync, THREADS, 0));
+            System.out.println(String.format(" %-7s %s   %-11d %-9d", "ASYNC", async,
+                    pipeline.deliveredCount(), pipeline.droppedCount()));
+            System.out.println("=====================================================================");
+            System.out.println(THREADS + " threads dying, " + CONCURRENT + " at a time; buffer capacity "
+                    + BUFFER_CAPACITY + ", " + Runtime.getRuntime().availableProcessors() + " CPU(s)");
+        } finally {
+            System.setOut(console);
+        }
+    }
+
+    /**
+     * Lanza THREADS hilos en tandas de CONCURRENT; todos mueren por una excepción no capturada.
+     * @return El tiempo total y el tiempo medio dentro del manejador, ya formateados.
+     */
+    private static String runStorm(UncaughtExceptionHandler notifier) throws InterruptedException {
+        LongAdder handlerNanos = new LongAdder();
+        UncaughtExceptionHandler timed = (t, e) -> {
+            long start = System.nanoTime();
+            notifier.uncaughtException(t, e);
+            handlerNanos.add(System.nanoTime() - start);
+        };
+
+        long start = System.nanoTime();
+        for (int launched = 0; launched < THREADS; launched += CONCURRENT) {
+            Thread[] batch = new Thread[CONCURRENT];
+            for (int i = 0; i < CONCURRENT; i++) {
+                batch[i] = new Thread(() -> {
+                    throw new RuntimeException("Simulated failure");
+                }, "StormThread-" + (launched + i));
+                batch[i].setUncaughtExceptionHandler(timed);
+                batch[i].start();
+            }
+            for (Thread thread : batch) {
+                thread.join();
+            }
+        }
+        long wallMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        return String.format("%-11s %-13s", wallMillis + " ms", handlerNanos.sum() / THREADS / 1000 + " us");
+    }
+
+    /**
+     * El comportamiento original de `ThreadExceptionNotifier`: el email se monta y se imprime
+     * en el hilo que muere, que espera a que `System.out` quede libre.
+     */
+    private static class SynchronousNotifier implements UncaughtExceptionHandler {
+        @Override
+        public void uncaughtException(Thread t, Throwable e) {
+            StringBuilder body = new StringBuilder();
+            body.append("Un error crítico ha ocurrido en la aplicación.\n\n");
+            body.append("Detalles del Hilo:\n");
+            body.append("  Nombre: ").append(t.getName()).append("\n");
+            body.append("  ID: ").append(t.threadId()).append("\n\n");
+            body.append("Detalles del Error:\n");
+            body.append("  Tipo: ").append(e.getClass().getName()).append("\n");
+            body.append("  Mensaje: ").append(e.getMessage()).append("\n\n");
+            System.out.println("--- SIMULACIÓN DE ENVÍO DE EMAIL ---");
+            System.out.println("Destinatario: admin@my-app.com");
+            System.out.println("Asunto: ERROR CRÍTICO: El hilo '" + t.getName() + "' ha fallado");
+            System.out.println("Cuerpo del mensaje (resumen): \n" + body);
+            System.out.println("------------------------------------");
+        }
+    }
+}
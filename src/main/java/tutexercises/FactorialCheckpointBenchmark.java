@@ -0,0 +1,117 @@
+package tutexercises;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import tuts.common.CheckpointedFactorialTask;
+import tuts.common.FactorialCheckpoints;
+
+/**
+ * Mide cuánto ahorra compartir un `FactorialCheckpoints` entre tareas de factorial:
+ * <ul>
+ *   <li>OVERLAPPING: REQUESTS peticiones de n! con n al azar entre MIN_N y MAX_N (se repiten y
+ *       se solapan), ejecutadas por un pool de WORKERS hilos.</li>
+ *   <li>CANCEL+RETRY: se pide CANCEL_N!, se cancela con `future.cancel(true)` a mitad, y se
+ *       vuelve a pedir. Se mide cuánto tarda la segunda petición.</li>
+ * </ul>
+ * Cada escenario se ejecuta con un almacén de 0 bytes (no guarda nada: siempre se empieza
+ * desde 1) y con uno de STORE_BYTES.
+ */
+public class FactorialCheckpointBenchmark {
+
+    private static final int REQUESTS = 24;
+    private static final int MIN_N = 100_000;
+    private static final int MAX_N = 200_000;
+    private static final int WORKERS = 4;
+    private static final int CANCEL_N = 300_000;
+    private static final long STORE_BYTES = 8L << 20;
+
+    public static void main(String[] args) throws Exception {
+        // Una pasada previa para que el JIT compile el camino de las multiplicaciones.
+        runOverlapping(new FactorialCheckpoints(0));
+
+        System.out.println("======================================================================");
+        System.out.println(" SCENARIO       NO STORE MS   STORE MS   STORE STATS");
+        System.out.println("======================================================================");
+
+        long withoutStore = runOverlapping(new FactorialCheckpoints(0));
+        FactorialCheckpoints store = new FactorialCheckpoints(STORE_BYTES);
+        long withStore = runOverlapping(store);
+        System.out.printf(" %-14s %-13d %-10d %s%n", "OVERLAPPING", withoutStore, withStore, store.stats());
+
+        withoutStore = runCancelAndRetry(new FactorialCheckpoints(0));
+        store = new FactorialCheckpoints(STORE_BYTES);
+        withStore = runCancelAndRetry(store);
+        System.out.printf(" %-14s %-13d %-10d %s%n", "CANCEL+RETRY", withoutStore, withStore, store.stats());
+
+        System.out.println("======================================================================");
+        System.out.println(REQUESTS + " requests for n in [" + MIN_N + ", " + MAX_N + "] on " + WORKERS
+                + " workers; store of " + (STORE_BYTES >> 20) + " MB; "
+                + Runtime.getRuntime().availableProcessors() + " CPU(s)");
+    }
+
+    /**
+     * @return Milisegundos hasta tener todos los resultados.
+     */
+    private static long runOverlapping(FactorialCheckpoints store) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(WORKERS);
+        Random random = new Random(42);
+        long start = System.nanoTime();
+        List<Future<BigInteger>> futures = new ArrayList<>(REQUESTS);
+        int[] ns = new int[REQUESTS];
+        for (int i = 0; i < REQUESTS; i++) {
+            ns[i] = MIN_N + random.nextInt(MAX_N - MIN_N + 1);
+            futures.add(pool.submit(new CheckpointedFactorialTask(ns[i], store)));
+        }
+        for (int i = 0; i < REQUESTS; i++) {
+            checkBits(ns[i], futures.get(i).get());
+        }
+        long elapsed = millisSince(start);
+        pool.shutdown();
+        return elapsed;
+    }
+
+    /**
+     * @return Milisegundos de la segunda petición, la que llega después de cancelar la primera.
+     */
+    private static long runCancelAndRetry(FactorialCheckpoints store) throws Exception {
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+
+        long start = System.nanoTime();
+        BigInteger full = pool.submit(new CheckpointedFactorialTask(CANCEL_N, new FactorialCheckpoints(0))).get();
+        long fullMillis = millisSince(start);
+
+        Future<BigInteger> first = pool.submit(new CheckpointedFactorialTask(CANCEL_N, store));
+        TimeUnit.MILLISECONDS.sleep(fullMillis / 2);
+        first.cancel(true);
+
+        start = System.nanoTime();
+        BigInteger retry = pool.submit(new CheckpointedFactorialTask(CANCEL_N, store)).get();
+        long elapsed = millisSince(start);
+        pool.shutdown();
+        if (!retry.equals(full)) {
+            throw new IllegalStateException("Wrong result for " + CANCEL_N + "!");
+        }
+        return elapsed;
+    }
+
+    /**
+     * Una comprobación barata: log2(n!) por la aproximación de Stirling.
+     */
+    private static void checkBits(int n, BigInteger factorial) {
+        double log2 = (n * Math.log(n) - n + 0.5 * Math.log(2 * Math.PI * n)) / Math.log(2);
+        if (Math.abs(factorial.bitLength() - Math.ceil(log2)) > 1) {
+            throw new IllegalStateException("Wrong result for " + n + "!");
+        }
+    }
+
+    private static long millisSince(long start) {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
@@ -0,0 +1,101 @@
+package tutexercises;
+
+import java.lang.Thread.UncaughtExceptionHandler;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import tuts.common.ExceptionCapturingThreadPoolExecutor;
+import tuts.common.InstrumentedThreadFactory;
+import tuts.common.NamedBuilderThreadsFactory;
+
+/**
+ * Compara un pool normal con {@link ExceptionCapturingThreadPoolExecutor} cuando el 10% de
+ * las tareas fallan.
+ *
+ * En el pool normal, cada fallo de `execute()` mata a un hilo y el pool crea otro (se ve en la
+ * columna THREADS CREATED), y los fallos de `submit()` no llegan nunca al manejador. En el pool
+ * que captura los fallos, los hilos sobreviven y el manejador recibe todos los fallos.
+ * El manejador solo cuenta, para medir el coste del pool y no el de imprimir. Con un solo
+ * núcleo, el informador apenas consigue CPU mientras los hilos del pool trabajan, así que
+ * parte de los avisos los entrega el propio hilo del pool (columna INLINE).
+ */
+public class FailureCaptureBenchmark {
+
+    private static final int POOL_SIZE = 4;
+    private static final int TASKS = 200_000;
+    private static final int FAILURE_EVERY = 10;
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) throws InterruptedException {
+        // Una ronda de calentamiento de cada combinación.
+        for (int round = 0; round <= ROUNDS; round++) {
+            boolean print = round == ROUNDS;
+            if (print) {
+                System.out.println("===================================================================================");
+                System.out.println(" POOL        METHOD    WALL TIME   THREADS CREATED   HANDLED    INLINE");
+                System.out.println("===================================================================================");
+            }
+            for (boolean capturing : new boolean[] {false, true}) {
+                for (boolean submit : new boolean[] {false, true}) {
+                    String line = runTest(capturing, submit);
+                    if (print) {
+                        System.out.println(line);
+                    }
+                }
+            }
+        }
+        System.out.println("===================================================================================");
+        System.out.println(TASKS + " tiny tasks, 1 in " + FAILURE_EVERY + " throws; " + POOL_SIZE + " workers, "
+                + Runtime.getRuntime().availableProcessors() + " CPU(s)");
+    }
+
+    private static String runTest(boolean capturing, boolean submit) throws InterruptedException {
+        LongAdder handled = new LongAdder();
+        UncaughtExceptionHandler countingHandler = (t, e) -> handled.increment();
+        InstrumentedThreadFactory factory = new InstrumentedThreadFactory(
+                NamedBuilderThreadsFactory.ofPlatform("PoolWorker-", 0, false, countingHandler, false));
+        ExecutorService pool = capturing
+                ? new ExceptionCapturingThreadPoolExecutor(POOL_SIZE, factory)
+                : new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), factory);
+
+        CountDownLatch done = new CountDownLatch(TASKS);
+        long start = System.nanoTime();
+        for (int i = 0; i < TASKS; i++) {
+            boolean fails = i % FAILURE_EVERY == 0;
+            Runnable task = () -> {
+                done.countDown();
+                if (fails) {
+                    throw new IllegalStateException("Simulated failure");
+                }
+            };
+            if (submit) {
+                pool.submit(task);
+            } else {
+                pool.execute(task);
+            }
+        }
+        done.await();
+        pool.shutdown();
+        pool.awaitTermination(1, TimeUnit.MINUTES);
+        long wallMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        long inline = 0;
+        if (capturing) {
+            // El informador sigue entregando los avisos pendientes después de que el pool termine.
+            ExceptionCapturingThreadPoolExecutor capturingPool = (ExceptionCapturingThreadPoolExecutor) pool;
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (handled.sum() < capturingPool.getCapturedFailures()
+                    && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            inline = capturingPool.getInlineReports();
+        }
+
+        return String.format(" %-11s %-9s %-11s %-17d %-10d %d", capturing ? "CAPTURING" : "PLAIN",
+                submit ? "submit" : "execute", wallMillis + " ms", factory.snapshot().created, handled.sum(), inline);
+    }
+}
@@ -0,0 +1,146 @@
+package tutexercises;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import tuts.common.AsyncPipeline;
+
+/**
+ * Mide la latencia de punta a punta de un cálculo en 3 etapas sobre FAN_OUT datos:
+ * <ol>
+ *   <li>Una tarea por dato que "tarda" entre 1 y MAX_SLEEP ms, como `CalculationTaskA`
+ *       (pero sin mensajes por consola). Una de cada SLOW_EVERY tarda SLOW_SLEEP ms.</li>
+ *   <li>Una segunda llamada lenta por resultado (con los mismos tiempos).</li>
+ *   <li>La suma de todos los resultados.</li>
+ * </ol>
+ * <ul>
+ *   <li>BLOCKING: como en `ReturningValuesUsingExecutors_FirstTechnique`: se envían las tareas
+ *       de una etapa y se recogen con `future.get()` en orden, antes de lanzar la siguiente.</li>
+ *   <li>PIPELINE: con `AsyncPipeline`: cada dato pasa a la etapa 2 en cuanto termina su etapa 1,
+ *       la suma se hace en un pool aparte, y el hilo principal solo espera al final.</li>
+ * </ul>
+ * Los tiempos de espera son los mismos en las dos versiones (misma semilla).
+ */
+public class FanOutBenchmark {
+
+    private static final int FAN_OUT = 1_000;
+    private static final int IO_THREADS = FAN_OUT;
+    private static final int MAX_SLEEP = 20;
+    // Una de cada SLOW_EVERY llamadas es lenta, como pasa con los servicios reales.
+    private static final int SLOW_EVERY = 100;
+    private static final int SLOW_SLEEP = 200;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws Exception {
+        int[] stage1Sleeps = new int[FAN_OUT];
+        int[] stage2Sleeps = new int[FAN_OUT];
+        Random random = new Random(42);
+        for (int i = 0; i < FAN_OUT; i++) {
+            stage1Sleeps[i] = randomSleep(random);
+            stage2Sleeps[i] = randomSleep(random);
+        }
+        long expected = 0;
+        for (int i = 0; i < FAN_OUT; i++) {
+            expected += 2L * (i + i + 1);
+        }
+
+        ExecutorService ioPool = Executors.newFixedThreadPool(IO_THREADS);
+        ExecutorService computePool = Executors.newFixedThreadPool(2);
+        try {
+            // Pasadas previas para arrancar los hilos y que el JIT compile ambos caminos.
+            runBlocking(ioPool, stage1Sleeps, stage2Sleeps);
+            runPipeline(ioPool, computePool, stage1Sleeps, stage2Sleeps);
+
+            System.out.println("=======================================================");
+            System.out.println(" STYLE        END-TO-END MS (BEST OF " + ROUNDS + ")   WORST MS");
+            System.out.println("=======================================================");
+            for (boolean pipeline : new boolean[] {false, true}) {
+                long best = Long.MAX_VALUE;
+                long worst = 0;
+                for (int round = 0; round < ROUNDS; round++) {
+                    long start = System.nanoTime();
+                    long sum = pipeline
+                            ? runPipeline(ioPool, computePool, stage1Sleeps, stage2Sleeps)
+                            : runBlocking(ioPool, stage1Sleeps, stage2Sleeps);
+                    long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                    if (sum != expected) {
+                        throw new IllegalStateException("Wrong sum: " + sum);
+                    }
+                    best = Math.min(best, elapsed);
+                    worst = Math.max(worst, elapsed);
+                }
+                System.out.printf(" %-12s %-28d %d%n", pipeline ? "PIPELINE" : "BLOCKING", best, worst);
+            }
+            System.out.println("=======================================================");
+            System.out.println("3 stages, " + FAN_OUT + "-way fan-out, waits of 1-" + MAX_SLEEP + " ms (1 in "
+                    + SLOW_EVERY + " of " + SLOW_SLEEP + " ms), " + IO_THREADS + " I/O threads, "
+                    + Runtime.getRuntime().availableProcessors() + " CPU(s)");
+        } finally {
+            ioPool.shutdown();
+            computePool.shutdown();
+        }
+    }
+
+    private static long runBlocking(ExecutorService ioPool, int[] stage1Sleeps, int[] stage2Sleeps)
+            throws Exception {
+        List<Future<Integer>> stage1 = new ArrayList<>(FAN_OUT);
+        for (int i = 0; i < FAN_OUT; i++) {
+            int a = i;
+            int b = i + 1;
+            int sleep = stage1Sleeps[i];
+            stage1.add(ioPool.submit(() -> calculate(a, b, sleep)));
+        }
+        List<Future<Long>> stage2 = new ArrayList<>(FAN_OUT);
+        for (int i = 0; i < FAN_OUT; i++) {
+            // Hasta que no llega el resultado i, no se lanza su etapa 2 (ni la de los siguientes).
+            int value = stage1.get(i).get();
+            int sleep = stage2Sleeps[i];
+            stage2.add(ioPool.submit(() -> slowDouble(value, sleep)));
+        }
+        long sum = 0;
+        for (Future<Long> future : stage2) {
+            sum += future.get();
+        }
+        return sum;
+    }
+
+    private static long runPipeline(ExecutorService ioPool, ExecutorService computePool, int[] stage1Sleeps,
+            int[] stage2Sleeps) {
+        AsyncPipeline pipeline = new AsyncPipeline(ioPool);
+        List<CompletableFuture<Long>> stage2 = new ArrayList<>(FAN_OUT);
+        for (int i = 0; i < FAN_OUT; i++) {
+            int a = i;
+            int b = i + 1;
+            int sleep1 = stage1Sleeps[i];
+            int sleep2 = stage2Sleeps[i];
+            CompletableFuture<Integer> stage1 = pipeline.supply(() -> calculate(a, b, sleep1));
+            stage2.add(pipeline.map(stage1, value -> slowDouble(value, sleep2)));
+        }
+        // La única espera del hilo principal.
+        return pipeline.allOf(stage2, 0L, Long::sum, computePool).join();
+    }
+
+    private static int randomSleep(Random random) {
+        return random.nextInt(SLOW_EVERY) == 0 ? SLOW_SLEEP : 1 + random.nextInt(MAX_SLEEP);
+    }
+
+    private static int calculate(int a, int b, int sleepMillis) throws InterruptedException {
+        TimeUnit.MILLISECONDS.sleep(sleepMillis);
+        return a + b;
+    }
+
+    private static long slowDouble(int value, int sleepMillis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(sleepMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return 2L * value;
+    }
+}
@@ -0,0 +1,17 @@
+package tutexercises;
+
+/**
+ * Qué hace submit() cuando la cola acotada de MyExecutorService está llena.
+ * Es la "contrapresión" (backpressure): en lugar de dejar crecer la memoria sin límite,
+ * se frena, se rechaza o se desvía el trabajo del productor.
+ */
+enum FullQueuePolicy {
+    /** El productor se duerme hasta que un trabajador libere un hueco (o hasta que lo interrumpan). */
+    BLOCK,
+    /** El productor reintenta activamente un rato (barato si el hueco llega pronto) y después se duerme. */
+    SPIN_THEN_PARK,
+    /** Se lanza una TaskRejectedException inmediatamente. */
+    REJECT,
+    /** La tarea se ejecuta en el propio hilo que llama a submit(), lo que frena al productor de forma natural. */
+    CALLER_RUNS
+}
@@ -0,0 +1,88 @@
+package tutexercises;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Ping-pong entre un productor y un único trabajador: el productor envía una tarea, la tarea
+ * responde escribiendo un campo volátil y el productor mide cuánto tardó en llegar la respuesta.
+ * Así se mide sobre todo lo que cuesta despertar al trabajador con cada {@link IdleStrategy},
+ * frente a la cola original con wait()/notify().
+ *
+ * Se prueban dos ritmos de llegada: pings seguidos y pings separados por una pausa de
+ * 1 ms, con la que esperar activamente ya no compensa. La columna CPU es el tiempo de CPU
+ * de todo el proceso, para ver cuánto cuesta la espera activa.
+ */
+public class HandOffBenchmark {
+
+    private static final int PINGS = 20_000;
+    private static final long SPARSE_GAP_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final int SPARSE_PINGS = 2_000;
+
+    private static volatile int pong;
+
+    public static void main(String[] args) {
+        // Pasada previa para que el JIT compile todas las rutas.
+        for (IdleStrategy strategy : IdleStrategy.values()) {
+            runTest(strategy, PINGS, 0L);
+        }
+        runTest(null, PINGS, 0L);
+
+        System.out.println("===========================================================================");
+        System.out.println(" IDLE STRATEGY       GAP      p50 RTT      p99 RTT      CPU");
+        System.out.println("===========================================================================");
+        System.out.println(runTest(null, PINGS, 0L));
+        for (IdleStrategy strategy : IdleStrategy.values()) {
+            System.out.println(runTest(strategy, PINGS, 0L));
+        }
+        System.out.println(runTest(null, SPARSE_PINGS, SPARSE_GAP_NANOS));
+        for (IdleStrategy strategy : IdleStrategy.values()) {
+            System.out.println(runTest(strategy, SPARSE_PINGS, SPARSE_GAP_NANOS));
+        }
+        System.out.println("===========================================================================");
+        System.out.println("1 worker; null strategy = original wait()/notify() queue; others use the ring buffer");
+    }
+
+    /**
+     * @param strategy La estrategia del trabajador, o null para la cola original.
+     * @return Una fila de la tabla de resultados.
+     */
+    private static String runTest(IdleStrategy strategy, int pings, long gapNanos) {
+        MyExecutorService service = strategy == null
+                ? new MyExecutorService(1)
+                : MyExecutorService.newBoundedService(1, 1024, FullQueuePolicy.BLOCK, strategy);
+
+        com.sun.management.OperatingSystemMXBean os =
+                (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+        long cpuBefore = os.getProcessCpuTime();
+        long[] roundTrips = new long[pings];
+
+        for (int i = 1; i <= pings; i++) {
+            if (gapNanos > 0) {
+                LockSupport.parkNanos(gapNanos);
+            }
+            final int ping = i;
+            long start = System.nanoTime();
+            service.submit(() -> pong = ping);
+            // yield() en lugar de espera activa pura, para no robarle la CPU al trabajador si hay pocos núcleos.
+            while (pong != ping) {
+                Thread.yield();
+            }
+            roundTrips[i - 1] = System.nanoTime() - start;
+        }
+
+        long cpuMillis = TimeUnit.NANOSECONDS.toMillis(os.getProcessCpuTime() - cpuBefore);
+        service.shutdown();
+        pong = 0;
+
+        Arrays.sort(roundTrips);
+        return String.format(" %-19s %-8s %-12s %-12s %d ms",
+                strategy == null ? "WAIT/NOTIFY" : strategy,
+                gapNanos == 0 ? "none" : TimeUnit.NANOSECONDS.toMillis(gapNanos) + " ms",
+                roundTrips[pings / 2] / 1000.0 + " us",
+                roundTrips[(int) (pings * 0.99)] / 1000.0 + " us",
+                cpuMillis);
+    }
+}
@@ -0,0 +1,24 @@
+package tutexercises;
+
+/**
+ * Qué hace un trabajador de una cola sin lock global cuando se queda sin tareas, antes de
+ * dormirse con LockSupport.park() (ver {@link IdleWorkers}).
+ *
+ * Dormirse y despertar cuesta una llamada al sistema operativo por cada lado, decenas de
+ * microsegundos. Si la siguiente tarea va a llegar enseguida, es más barato seguir mirando
+ * la cola un momento; si va a tardar, esa espera activa solo quema CPU.
+ */
+enum IdleStrategy {
+    /** Se duerme en cuanto no encuentra trabajo (el comportamiento original). */
+    PARK,
+    /** Mira la cola en bucle con Thread.onSpinWait() un rato y después se duerme. */
+    SPIN_THEN_PARK,
+    /** Como SPIN_THEN_PARK, pero entre la espera activa y el sueño cede la CPU con Thread.yield(). */
+    SPIN_YIELD_PARK,
+    /**
+     * Como SPIN_YIELD_PARK, pero cada trabajador decide cuánto esperar según el tiempo que ha
+     * tardado en llegarle trabajo las últimas veces: si las tareas llegan seguidas, espera
+     * activamente; si llegan de tarde en tarde, se duerme directamente.
+     */
+    ADAPTIVE
+}
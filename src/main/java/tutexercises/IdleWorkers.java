@@ -0,0 +1,221 @@
+package tutexercises;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Registro de los trabajadores dormidos de una cola sin lock global.
+ *
+ * Sustituye al par wait()/notify() del monitor: cada trabajador se duerme con LockSupport.park()
+ * y quien encola una tarea solo despierta a alguien si de verdad hay un trabajador dormido.
+ *
+ * <b>Protocolo para no perder despertares:</b>
+ * <ol>
+ *   <li>El trabajador anuncia que se va a dormir ({@link #prepareToPark(int)}).</li>
+ *   <li>Vuelve a mirar la cola. Si encuentra trabajo, cancela el anuncio ({@link #cancelPark(int)}).</li>
+ *   <li>Si no, se duerme ({@link #park(int)}).</li>
+ * </ol>
+ * Quien encola primero publica la tarea y después consulta el registro ({@link #signalOne()}).
+ * Como ambos lados escriben y luego leen variables volátiles, al menos uno de los dos ve
+ * lo que ha hecho el otro: o el trabajador encuentra la tarea, o el productor encuentra al
+ * trabajador dormido.
+ *
+ * Antes del paso 1, el trabajador puede esperar activamente un rato según su
+ * {@link IdleStrategy} ({@link #awaitTask(int, TaskFinder)}). Mientras tanto no cuenta como
+ * dormido, así que quien encola no paga ningún unpark() por él.
+ */
+class IdleWorkers {
+
+    /**
+     * La búsqueda de tareas de la cola, para poder repetirla durante la espera activa.
+     */
+    interface TaskFinder {
+        Runnable findTask(int workerIndex);
+    }
+
+    // Intentos de la fase de espera activa (onSpinWait) y de la fase de ceder la CPU (yield).
+    private static final int SPIN_TRIES = 1000;
+    private static final int YIELD_TRIES = 50;
+    // ADAPTIVE: por debajo de estos tiempos medios sin trabajo se espera activamente / se cede la CPU.
+    private static final long SPIN_WINDOW_NANOS = 20_000;
+    private static final long YIELD_WINDOW_NANOS = 500_000;
+    // Con un solo núcleo, esperar activamente solo le quita la CPU al hilo que debe enviar la tarea.
+    private static final boolean MULTI_CORE = Runtime.getRuntime().availableProcessors() > 1;
+    // Cada trabajador usa una posición de cada 8 en los arrays de ADAPTIVE, para que dos
+    // trabajadores no compartan línea de caché (64 bytes).
+    private static final int PAD = 8;
+
+    private final IdleStrategy strategy;
+    private final Thread[] threads;
+    // 1 = el trabajador está (o está a punto de estar) dormido, 0 = despierto.
+    private final AtomicIntegerArray parked;
+    // Atajo para que submit() no tenga que recorrer el array cuando nadie duerme.
+    private final AtomicInteger idleCount = new AtomicInteger();
+
+    // ADAPTIVE: cuándo empezó el periodo sin trabajo actual y la media móvil de su duración.
+    // Cada posición la escribe y la lee solo su trabajador.
+    private final long[] idleSince;
+    private final long[] averageIdleNanos;
+
+    IdleWorkers(int capacity) {
+        this(capacity, IdleStrategy.PARK);
+    }
+
+    IdleWorkers(int capacity, IdleStrategy strategy) {
+        this.strategy = strategy;
+        this.threads = new Thread[capacity];
+        this.parked = new AtomicIntegerArray(capacity);
+        this.idleSince = new long[capacity * PAD];
+        this.averageIdleNanos = new long[capacity * PAD];
+        // Hasta tener datos, ADAPTIVE empieza cediendo la CPU: ni quema CPU ni duerme de inmediato.
+        for (int i = 0; i < capacity; i++) {
+            averageIdleNanos[i * PAD] = SPIN_WINDOW_NANOS;
+        }
+    }
+
+    /**
+     * La fase activa de la estrategia: repite la búsqueda de tareas con onSpinWait() y/o
+     * yield() antes de que el trabajador tenga que dormirse.
+     * @return La tarea encontrada, o null si el trabajador debe seguir con {@link #prepareToPark(int)}.
+     */
+    Runnable awaitTask(int index, TaskFinder finder) {
+        int spinTries;
+        int yieldTries;
+        switch (strategy) {
+            case SPIN_THEN_PARK:
+                spinTries = SPIN_TRIES;
+                yieldTries = 0;
+                break;
+            case SPIN_YIELD_PARK:
+                spinTries = SPIN_TRIES;
+                yieldTries = YIELD_TRIES;
+                break;
+            case ADAPTIVE:
+                idleSince[index * PAD] = System.nanoTime();
+                long average = averageIdleNanos[index * PAD];
+                spinTries = MULTI_CORE && average < SPIN_WINDOW_NANOS ? SPIN_TRIES : 0;
+                yieldTries = average < YIELD_WINDOW_NANOS ? YIELD_TRIES : 0;
+                break;
+            default:
+                return null;
+        }
+
+        for (int i = 0; i < spinTries + yieldTries; i++) {
+            Runnable task = finder.findTask(index);
+            if (task != null) {
+                recordIdlePeriod(index);
+                return task;
+            }
+            if (i < spinTries) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * ADAPTIVE: suma a la media móvil (con peso 1/8) lo que ha durado el periodo sin trabajo.
+     * Si el trabajador llegó a dormirse, incluye lo que tardó en despertar, así que una carga
+     * que obliga a dormirse a menudo lleva a la estrategia a dormirse antes.
+     */
+    private void recordIdlePeriod(int index) {
+        if (strategy != IdleStrategy.ADAPTIVE) {
+            return;
+        }
+        long idle = System.nanoTime() - idleSince[index * PAD];
+        long average = averageIdleNanos[index * PAD];
+        averageIdleNanos[index * PAD] = average + ((idle - average) >> 3);
+    }
+
+    /**
+     * Anuncia que el trabajador 'index' se va a dormir. Después de llamarlo, el trabajador
+     * DEBE volver a comprobar la cola antes de llamar a {@link #park(int)}.
+     */
+    void prepareToPark(int index) {
+        // La escritura normal de 'threads' queda publicada por la escritura volátil de 'parked'.
+        threads[index] = Thread.currentThread();
+        parked.set(index, 1);
+        idleCount.incrementAndGet();
+    }
+
+    /**
+     * Retira el anuncio de sueño. Si otro hilo ya lo había retirado para despertarlo,
+     * no hace nada (el permiso de unpark() pendiente solo provoca una vuelta extra).
+     */
+    void cancelPark(int index) {
+        if (parked.compareAndSet(index, 1, 0)) {
+            idleCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * Duerme al trabajador hasta que alguien lo despierte. Puede volver antes de tiempo
+     * (despertar espurio), por eso el llamante siempre vuelve a mirar la cola.
+     */
+    void park(int index) {
+        LockSupport.park(this);
+        cancelPark(index);
+        recordIdlePeriod(index);
+    }
+
+    /**
+     * Como {@link #park(int)}, pero se despierta solo como mucho tras 'nanos' nanosegundos.
+     */
+    void parkNanos(int index, long nanos) {
+        LockSupport.parkNanos(this, nanos);
+        cancelPark(index);
+        recordIdlePeriod(index);
+    }
+
+    /**
+     * @return El número de trabajadores dormidos (o a punto de dormirse).
+     */
+    int idleCount() {
+        return idleCount.get();
+    }
+
+    /**
+     * Despierta a un trabajador dormido, si hay alguno. Se empieza por una posición aleatoria
+     * para no despertar siempre al mismo.
+     */
+    void signalOne() {
+        if (idleCount.get() == 0) {
+            return;
+        }
+        int n = threads.length;
+        int start = ThreadLocalRandom.current().nextInt(n);
+        for (int i = 0; i < n; i++) {
+            int index = (start + i) % n;
+            if (parked.get(index) == 1 && parked.compareAndSet(index, 1, 0)) {
+                idleCount.decrementAndGet();
+                LockSupport.unpark(threads[index]);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Despierta como mucho a 'count' trabajadores dormidos.
+     */
+    void signal(int count) {
+        for (int i = 0; i < count && idleCount.get() > 0; i++) {
+            signalOne();
+        }
+    }
+
+    /**
+     * Despierta a todos los trabajadores dormidos (se usa al cerrar la cola).
+     */
+    void signalAll() {
+        for (int index = 0; index < threads.length; index++) {
+            if (parked.compareAndSet(index, 1, 0)) {
+                idleCount.decrementAndGet();
+                LockSupport.unpark(threads[index]);
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package tutexercises;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compara {@link KeyedSerialExecutor} con la única opción ordenada que había hasta ahora,
+ * Executors.newSingleThreadExecutor(), con 1.000.000 de claves a las que se accede con una
+ * distribución de Zipf (unas pocas claves reciben la mayoría de las tareas).
+ *
+ * Cada tarea comprueba que llega en el orden de envío de su clave; la columna VIOLATIONS
+ * debe ser siempre 0. PEAK KEYS es el máximo de buzones vivos a la vez.
+ */
+public class KeyedExecutorBenchmark {
+
+    private static final int KEYS = 1_000_000;
+    private static final int TASKS = 2_000_000;
+    private static final double ZIPF_EXPONENT = 1.0;
+    private static final int POOL_SIZE = 4;
+
+    public static void main(String[] args) throws InterruptedException {
+        int[] keys = zipfKeys();
+        // Número de orden de cada tarea dentro de su clave.
+        int[] sequence = new int[TASKS];
+        int[] nextSequence = new int[KEYS];
+        for (int i = 0; i < TASKS; i++) {
+            sequence[i] = nextSequence[keys[i]]++;
+        }
+
+        // Pasada previa para que el JIT compile todas las rutas.
+        runSingleThread(keys, sequence);
+        runKeyed(keys, sequence, false);
+
+        System.out.println("=====================================================================");
+        System.out.println(" EXECUTOR                       TASKS/S       VIOLATIONS   PEAK KEYS");
+        System.out.println("=====================================================================");
+        System.out.println(runSingleThread(keys, sequence));
+        System.out.println(runKeyed(keys, sequence, false));
+        System.out.println(runKeyed(keys, sequence, true));
+        System.out.println("=====================================================================");
+        System.out.println(TASKS + " tasks over " + KEYS + " keys, Zipf s=" + ZIPF_EXPONENT + ", pool of " + POOL_SIZE);
+    }
+
+    private static String runSingleThread(int[] keys, int[] sequence) throws InterruptedException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Checker checker = new Checker();
+        long start = System.nanoTime();
+        for (int i = 0; i < TASKS; i++) {
+            executor.execute(checker.task(keys[i], sequence[i]));
+        }
+        checker.awaitAll();
+        long elapsed = System.nanoTime() - start;
+        executor.shutdown();
+        return row("SINGLE THREAD EXECUTOR", elapsed, checker, "n/a");
+    }
+
+    private static String runKeyed(int[] keys, int[] sequence, boolean workStealing) throws InterruptedException {
+        MyExecutorService pool = workStealing
+                ? MyExecutorService.newWorkStealingService(POOL_SIZE)
+                : new MyExecutorService(POOL_SIZE);
+        KeyedSerialExecutor<Integer> executor = new KeyedSerialExecutor<>(pool);
+        Checker checker = new Checker();
+        int peakKeys = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < TASKS; i++) {
+            executor.submit(keys[i], checker.task(keys[i], sequence[i]));
+            if ((i & 0xFFFF) == 0) {
+                peakKeys = Math.max(peakKeys, executor.activeKeys());
+            }
+        }
+        checker.awaitAll();
+        long elapsed = System.nanoTime() - start;
+        pool.shutdown();
+        return row(workStealing ? "KEYED (WORK STEALING POOL)" : "KEYED (SINGLE-LOCK POOL)", elapsed, checker,
+                String.valueOf(peakKeys));
+    }
+
+    private static String row(String name, long elapsedNanos, Checker checker, String peakKeys) {
+        return String.format(" %-30s %-13d %-12d %s",
+                name, (long) (TASKS / (elapsedNanos / 1e9)), checker.violations.sum(), peakKeys);
+    }
+
+    /**
+     * Genera TASKS claves con una distribución de Zipf mediante la inversa de su función de distribución.
+     */
+    private static int[] zipfKeys() {
+        double[] cumulative = new double[KEYS];
+        double sum = 0;
+        for (int k = 0; k < KEYS; k++) {
+            sum += 1.0 / Math.pow(k + 1, ZIPF_EXPONENT);
+            cumulative[k] = sum;
+        }
+        Random random = new Random(42);
+        int[] keys = new int[TASKS];
+        for (int i = 0; i < TASKS; i++) {
+            double target = random.nextDouble() * sum;
+            int low = 0;
+            int high = KEYS - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (cumulative[mid] < target) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            keys[i] = low;
+        }
+        return keys;
+    }
+
+    /**
+     * Crea las tareas y comprueba que las de cada clave se ejecutan en orden y nunca a la vez.
+     * 'expected' no es atómico a propósito: si dos tareas de la misma clave se solaparan, o
+     * llegaran desordenadas, la comprobación fallaría y se contaría como violación.
+     */
+    private static class Checker {
+        private final int[] expected = new int[KEYS];
+        private final LongAdder violations = new LongAdder();
+        private final LongAdder completed = new LongAdder();
+
+        Runnable task(int key, int sequence) {
+            return () -> {
+                if (expected[key] != sequence) {
+                    violations.increment();
+                }
+                expected[key] = sequence + 1;
+                completed.increment();
+            };
+        }
+
+        void awaitAll() throws InterruptedException {
+            while (completed.sum() < TASKS) {
+                TimeUnit.MILLISECONDS.sleep(1);
+            }
+        }
+    }
+}
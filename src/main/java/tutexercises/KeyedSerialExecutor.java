@@ -0,0 +1,166 @@
+package tutexercises;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ejecuta en orden las tareas de una misma clave (una misma entidad) y en paralelo las de
+ * claves distintas, sobre un {@link MyExecutorService} compartido.
+ *
+ * Es como tener un newSingleThreadExecutor() por clave, pero sin un hilo por clave:
+ * <ul>
+ *   <li>Cada clave tiene un buzón (mailbox): una cola sin locks y un contador de tareas pendientes.</li>
+ *   <li>El buzón solo se envía al pool cuando pasa de 0 a 1 tareas pendientes, así que como
+ *       mucho un hilo del pool lo está procesando en cada momento: eso garantiza el orden.</li>
+ *   <li>Cuando se vacía, el buzón se retira del mapa. Solo ocupan memoria las claves con
+ *       trabajo pendiente, aunque haya millones de claves distintas.</li>
+ * </ul>
+ * No hay ningún lock global: el mapa es un ConcurrentHashMap y el resto son operaciones atómicas.
+ *
+ * @param <K> El tipo de la clave.
+ */
+class KeyedSerialExecutor<K> {
+
+    // Tareas seguidas que ejecuta un buzón antes de volver al final de la cola del pool, para
+    // que una clave muy activa no acapare un hilo mientras otras claves esperan.
+    private static final int MAX_BATCH = 64;
+    private static final int SPIN_TRIES = 100;
+
+    private final MyExecutorService pool;
+    private final ConcurrentHashMap<K, Mailbox> mailboxes = new ConcurrentHashMap<>();
+
+    KeyedSerialExecutor(MyExecutorService pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Envía una tarea para la clave indicada. Se ejecutará después de todas las tareas que se
+     * enviaron antes para esa misma clave (desde el mismo hilo), y nunca a la vez que ellas.
+     * @throws ServiceClosedException si el pool ha sido apagado.
+     * @throws TaskRejectedException si el pool tiene una cola acotada llena y su política es rechazar.
+     */
+    void submit(K key, Runnable task) {
+        while (true) {
+            Mailbox mailbox = mailboxes.computeIfAbsent(key, Mailbox::new);
+            int pending = mailbox.reserve();
+            if (pending < 0) {
+                // El buzón se acaba de retirar: se vuelve a buscar (o crear) el de la clave.
+                continue;
+            }
+            mailbox.tasks.offer(task);
+            if (pending == 0) {
+                try {
+                    pool.submit(mailbox);
+                } catch (RuntimeException e) {
+                    // El pool no acepta el buzón: la tarea no se ejecutará, así que se deshace la reserva.
+                    mailbox.rollback(task);
+                    throw e;
+                }
+            }
+            return;
+        }
+    }
+
+    /**
+     * @return El número de claves con tareas pendientes o en ejecución (aproximado).
+     */
+    int activeKeys() {
+        return mailboxes.size();
+    }
+
+    /**
+     * El buzón de una clave. Se ejecuta en el pool como una tarea más que va vaciando su cola.
+     */
+    private final class Mailbox implements Runnable {
+        private final K key;
+        private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        // Tareas reservadas y aún no terminadas; -1 = buzón retirado, ya no admite tareas.
+        private final AtomicInteger pending = new AtomicInteger();
+
+        Mailbox(K key) {
+            this.key = key;
+        }
+
+        /**
+         * Reserva un hueco para una tarea nueva.
+         * @return Las tareas pendientes antes de la reserva, o -1 si el buzón está retirado.
+         */
+        int reserve() {
+            while (true) {
+                int current = pending.get();
+                if (current < 0) {
+                    return -1;
+                }
+                if (pending.compareAndSet(current, current + 1)) {
+                    return current;
+                }
+            }
+        }
+
+        /**
+         * Deshace la reserva de una tarea que no se pudo enviar al pool. Si otros productores
+         * reservaron entretanto, vieron el buzón "en marcha" y nadie lo va a ejecutar: se vacía aquí.
+         */
+        void rollback(Runnable task) {
+            tasks.remove(task);
+            int remaining = pending.decrementAndGet();
+            if (remaining == 0) {
+                if (pending.compareAndSet(0, -1)) {
+                    mailboxes.remove(key, this);
+                }
+            } else if (remaining > 0) {
+                run();
+            }
+        }
+
+        @Override
+        public void run() {
+            // Quedan tareas tras cada tanda: se cede el hilo volviendo a la cola del pool. Si el pool
+            // no lo admite (apagado o cola llena), se sigue vaciando aquí: esperar hueco desde un
+            // trabajador podría bloquear a todos, y nadie más va a ejecutar este buzón.
+            while (drainBatch()) {
+                if (pool.trySubmit(this)) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Ejecuta hasta MAX_BATCH tareas seguidas.
+         * @return true si quedan tareas pendientes; false si el buzón se ha vaciado.
+         */
+        private boolean drainBatch() {
+            for (int executed = 0; executed < MAX_BATCH; executed++) {
+                Runnable task;
+                // El productor reserva antes de encolar: puede faltar un instante para que aparezca.
+                // Si tarda (el productor perdió la CPU justo en medio), le cedemos la nuestra.
+                int spins = 0;
+                while ((task = tasks.poll()) == null) {
+                    if (++spins < SPIN_TRIES) {
+                        Thread.onSpinWait();
+                    } else {
+                        Thread.yield();
+                    }
+                }
+
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    // Como en WorkerThread: la excepción de una tarea no para las siguientes de la clave.
+                    e.printStackTrace();
+                }
+
+                if (pending.decrementAndGet() == 0) {
+                    // Vacío: si nadie reserva antes, lo retiramos. Si alguien reservó, ese
+                    // productor vio 0 pendientes y ya está enviando el buzón al pool.
+                    if (pending.compareAndSet(0, -1)) {
+                        mailboxes.remove(key, this);
+                    }
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
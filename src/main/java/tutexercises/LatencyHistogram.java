@@ -0,0 +1,137 @@
+package tutexercises;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histograma log-lineal de tiempos en nanosegundos, pensado para que lo escriba un único hilo
+ * (cada trabajador de MyExecutorService tiene los suyos) y lo lean otros sin bloquearlo.
+ *
+ * <ul>
+ *   <li><b>Log-lineal:</b> cada potencia de dos se divide en SUB_BUCKETS cubos del mismo ancho,
+ *       así que el error relativo es como mucho 1/SUB_BUCKETS (~3%) tanto para 200 ns como
+ *       para 2 s, con un array fijo y sin reservar memoria al registrar.</li>
+ *   <li><b>Un único escritor:</b> record() es una lectura normal y una escritura con semántica
+ *       release del contador del cubo; no hay compareAndSet ni locks en el camino del trabajador.</li>
+ *   <li><b>Instantáneas combinables:</b> snapshot() copia los contadores y
+ *       {@link Snapshot#merge(Snapshot)} suma los de varios trabajadores para sacar percentiles globales.</li>
+ * </ul>
+ */
+class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // Valores por encima de 2^44 ns (casi 5 horas) se cuentan en el último cubo.
+    private static final int MAX_EXPONENT = 44;
+    private static final long MAX_TRACKED = (1L << (MAX_EXPONENT + 1)) - 1;
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    /**
+     * Registra un tiempo. Solo debe llamarlo el hilo dueño del histograma.
+     * @param nanos El tiempo en nanosegundos; los negativos cuentan como 0.
+     */
+    void record(long nanos) {
+        int bucket = bucketIndex(Math.min(Math.max(nanos, 0L), MAX_TRACKED));
+        counts.setRelease(bucket, counts.getPlain(bucket) + 1);
+    }
+
+    /**
+     * @return Una copia de los contadores en este momento. Puede llamarse desde cualquier hilo.
+     */
+    Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.getAcquire(i);
+        }
+        return new Snapshot(copy);
+    }
+
+    private static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    /**
+     * @return El valor central del rango de tiempos que cubre el cubo.
+     */
+    private static long bucketValue(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lowest + ((1L << shift) >> 1);
+    }
+
+    /**
+     * Una copia inmutable de uno o varios histogramas.
+     */
+    static final class Snapshot {
+        private final long[] counts;
+        private final long totalCount;
+
+        private Snapshot(long[] counts) {
+            this.counts = counts;
+            long total = 0;
+            for (long count : counts) {
+                total += count;
+            }
+            this.totalCount = total;
+        }
+
+        /**
+         * @return Una instantánea vacía, útil como punto de partida para merge().
+         */
+        static Snapshot empty() {
+            return new Snapshot(new long[BUCKETS]);
+        }
+
+        /**
+         * @return Una nueva instantánea con los contadores de ambas sumados.
+         */
+        Snapshot merge(Snapshot other) {
+            long[] merged = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) {
+                merged[i] = counts[i] + other.counts[i];
+            }
+            return new Snapshot(merged);
+        }
+
+        /**
+         * @return El número de tiempos registrados.
+         */
+        long count() {
+            return totalCount;
+        }
+
+        /**
+         * @param percentile Un valor entre 0 y 100, por ejemplo 99.9.
+         * @return El tiempo (en nanosegundos) por debajo del cual queda ese porcentaje de registros, o 0 si no hay ninguno.
+         */
+        long percentile(double percentile) {
+            if (totalCount == 0) {
+                return 0L;
+            }
+            long rank = Math.max(1L, (long) Math.ceil(percentile / 100.0 * totalCount));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return bucketValue(i);
+                }
+            }
+            return bucketValue(BUCKETS - 1);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("count=%d p50=%dns p90=%dns p99=%dns p99.9=%dns",
+                    totalCount, percentile(50), percentile(90), percentile(99), percentile(99.9));
+        }
+    }
+}
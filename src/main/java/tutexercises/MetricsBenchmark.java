@@ -0,0 +1,99 @@
+package tutexercises;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Mide el coste por tarea de las métricas de MyExecutorService (ver enableMetrics()):
+ * tiempo total por tarea y memoria reservada por tarea, con y sin métricas, usando la cola
+ * acotada sin locks para que la propia cola no reserve memoria y no enmascare la diferencia.
+ *
+ * Al final imprime los percentiles de espera en cola y de ejecución de la última pasada.
+ */
+public class MetricsBenchmark {
+
+    private static final int POOL_SIZE = 4;
+    private static final int CAPACITY = 1024;
+    private static final int TASKS = 2_000_000;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws InterruptedException {
+        // Pasadas previas para que el JIT compile ambas rutas.
+        runTest(false);
+        runTest(true);
+
+        System.out.println("==================================================");
+        System.out.println(" METRICS     NS/TASK (BEST OF " + ROUNDS + ")   BYTES/TASK");
+        System.out.println("==================================================");
+        double[] off = best(false);
+        double[] on = best(true);
+        System.out.printf(" %-11s %-22.1f %.1f%n", "OFF", off[0], off[1]);
+        System.out.printf(" %-11s %-22.1f %.1f%n", "ON", on[0], on[1]);
+        System.out.println("==================================================");
+        System.out.printf("Overhead: %.1f ns/task, %.1f bytes/task%n", on[0] - off[0], on[1] - off[1]);
+
+        MyExecutorService service = MyExecutorService.newBoundedService(POOL_SIZE, CAPACITY, FullQueuePolicy.BLOCK);
+        service.enableMetrics();
+        submitAndWait(service);
+        service.shutdown();
+        System.out.println("Queue wait: " + service.getQueueWaitSnapshot());
+        System.out.println("Run time:   " + service.getRunTimeSnapshot());
+    }
+
+    private static double[] best(boolean metrics) throws InterruptedException {
+        double[] best = {Double.MAX_VALUE, Double.MAX_VALUE};
+        for (int round = 0; round < ROUNDS; round++) {
+            double[] result = runTest(metrics);
+            best[0] = Math.min(best[0], result[0]);
+            best[1] = Math.min(best[1], result[1]);
+        }
+        return best;
+    }
+
+    /**
+     * @return {nanosegundos por tarea, bytes reservados por tarea}.
+     */
+    private static double[] runTest(boolean metrics) throws InterruptedException {
+        MyExecutorService service = MyExecutorService.newBoundedService(POOL_SIZE, CAPACITY, FullQueuePolicy.BLOCK);
+        if (metrics) {
+            service.enableMetrics();
+        }
+
+        com.sun.management.ThreadMXBean threadBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long[] threadIds = threadBean.getAllThreadIds();
+        long allocatedBefore = sum(threadBean.getThreadAllocatedBytes(threadIds));
+        long start = System.nanoTime();
+
+        submitAndWait(service);
+
+        long elapsed = System.nanoTime() - start;
+        long allocatedAfter = sum(threadBean.getThreadAllocatedBytes(threadIds));
+        service.shutdown();
+        return new double[]{elapsed / (double) TASKS, (allocatedAfter - allocatedBefore) / (double) TASKS};
+    }
+
+    private static void submitAndWait(MyExecutorService service) throws InterruptedException {
+        // Se reutiliza siempre la misma tarea para que la única memoria reservada sea la de las métricas.
+        LongAdder completed = new LongAdder();
+        Runnable task = completed::increment;
+        for (int i = 0; i < TASKS; i++) {
+            service.submit(task);
+        }
+        while (completed.sum() < TASKS) {
+            TimeUnit.MICROSECONDS.sleep(100);
+        }
+    }
+
+    private static long sum(long[] values) {
+        long total = 0;
+        for (long value : values) {
+            // -1 significa que el hilo ya no existe o que la medición no está disponible.
+            if (value > 0) {
+                total += value;
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,111 @@
+package tutexercises;
+
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * La cola original de MyExecutorService: una LinkedList protegida por su propio monitor.
+ *
+ * Todos los envíos y todas las extracciones pasan por el mismo bloque synchronized, y los
+ * trabajadores sin tarea se duermen con wait() hasta que un submit() les hace notify().
+ * Es sencilla y mantiene el orden FIFO, pero con muchos hilos ese único lock se convierte
+ * en el cuello de botella.
+ */
+class MonitorTaskQueue implements TaskQueue {
+
+    private final Queue<Runnable> taskQueue = new LinkedList<>();
+    private boolean isShutdown = false;
+    // Se modifica dentro del lock pero se lee sin él, por eso es volatile.
+    private volatile int waitingWorkers = 0;
+
+    @Override
+    public void put(Runnable task, int workerIndex) {
+        synchronized (taskQueue) {
+            if (isShutdown) {
+                throw new ServiceClosedException("El servicio está apagado. No se aceptan nuevas tareas.");
+            }
+            taskQueue.add(task);
+            taskQueue.notify(); // Notifica a un hilo en espera que hay una nueva tarea.
+        }
+    }
+
+    /**
+     * Todo el lote entra con una sola adquisición del lock. Después se hacen tantos notify()
+     * como tareas, pero nunca más que hilos esperando: un notify() sin nadie en wait() no sirve de nada.
+     */
+    @Override
+    public void putAll(Collection<? extends Runnable> tasks, int workerIndex) {
+        synchronized (taskQueue) {
+            if (isShutdown) {
+                throw new ServiceClosedException("El servicio está apagado. No se aceptan nuevas tareas.");
+            }
+            taskQueue.addAll(tasks);
+            int toWake = Math.min(tasks.size(), waitingWorkers);
+            for (int i = 0; i < toWake; i++) {
+                taskQueue.notify();
+            }
+        }
+    }
+
+    @Override
+    public Runnable take(int workerIndex) {
+        synchronized (taskQueue) {
+            // Espera mientras la cola esté vacía y el servicio no esté apagado.
+            while (taskQueue.isEmpty() && !isShutdown) {
+                waitingWorkers++;
+                try {
+                    taskQueue.wait();
+                } catch (InterruptedException e) {
+                    // Manejar la interrupción si es necesario.
+                } finally {
+                    waitingWorkers--;
+                }
+            }
+
+            // Si la cola está vacía y el servicio está apagado, poll() devuelve null y el hilo termina.
+            return taskQueue.poll();
+        }
+    }
+
+    @Override
+    public Runnable poll(int workerIndex, long timeoutNanos) {
+        synchronized (taskQueue) {
+            long remaining = timeoutNanos;
+            while (taskQueue.isEmpty() && !isShutdown && remaining > 0) {
+                long start = System.nanoTime();
+                waitingWorkers++;
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(taskQueue, remaining);
+                } catch (InterruptedException e) {
+                    // Manejar la interrupción si es necesario.
+                } finally {
+                    waitingWorkers--;
+                }
+                remaining -= System.nanoTime() - start;
+            }
+            return taskQueue.poll();
+        }
+    }
+
+    @Override
+    public int size() {
+        synchronized (taskQueue) {
+            return taskQueue.size();
+        }
+    }
+
+    @Override
+    public int idleWorkerCount() {
+        return waitingWorkers;
+    }
+
+    @Override
+    public void close() {
+        synchronized (taskQueue) {
+            isShutdown = true;
+            taskQueue.notifyAll(); // Despierta a todos los hilos para que verifiquen el estado de apagado.
+        }
+    }
+}
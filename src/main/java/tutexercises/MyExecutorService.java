@@ -0,0 +1,574 @@
+package tutexercises;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Una implementación básica de un servicio de ejecución que gestiona un pool de hilos
+ * y una cola de tareas.
+ */
+class MyExecutorService {
+    // Hilos que se mantienen siempre vivos y máximo al que puede crecer el pool.
+    // En un pool fijo ambos valen lo mismo.
+    private final int corePoolSize;
+    private final int maxPoolSize;
+    // Tiempo que un hilo por encima del mínimo puede estar sin trabajo antes de retirarse.
+    private final long keepAliveNanos;
+
+    // Cada hilo ocupa una posición (su índice); las posiciones libres valen null.
+    private final AtomicReferenceArray<WorkerThread> threads;
+    private final TaskQueue taskQueue;
+    // Contador sin locks de hilos vivos; los hilos dormidos los cuenta la propia cola.
+    private final AtomicInteger liveWorkers = new AtomicInteger();
+    private volatile boolean isShutdown = false;
+
+    // Modo hilos virtuales: cada tarea se ejecuta en su propio hilo virtual y no hay ni pool ni cola.
+    // Ambos valen null en los modos con hilos de plataforma; el semáforo también si no hay límite.
+    private final ThreadFactory virtualThreadFactory;
+    private final Semaphore concurrencyLimit;
+
+    // Métricas opcionales (ver enableMetrics()): un par de histogramas por posición de hilo,
+    // cada uno escrito solo por el hilo que ocupa esa posición.
+    private final LatencyHistogram[] queueWaitHistograms;
+    private final LatencyHistogram[] runTimeHistograms;
+    private volatile boolean metricsEnabled = false;
+
+    /**
+     * Constructor que inicializa el pool de hilos con una única cola protegida por un lock.
+     * @param poolSize El número de hilos en el pool.
+     */
+    public MyExecutorService(int poolSize) {
+        this(poolSize, poolSize, 0L, new MonitorTaskQueue());
+    }
+
+    private MyExecutorService(int corePoolSize, int maxPoolSize, long keepAliveNanos, TaskQueue taskQueue) {
+        if (corePoolSize < 1 || maxPoolSize < corePoolSize) {
+            throw new IllegalArgumentException("Tamaños de pool no válidos: core=" + corePoolSize + ", max=" + maxPoolSize);
+        }
+        this.corePoolSize = corePoolSize;
+        this.maxPoolSize = maxPoolSize;
+        this.keepAliveNanos = keepAliveNanos;
+        this.threads = new AtomicReferenceArray<>(maxPoolSize);
+        this.taskQueue = taskQueue;
+        this.virtualThreadFactory = null;
+        this.concurrencyLimit = null;
+        this.queueWaitHistograms = new LatencyHistogram[maxPoolSize];
+        this.runTimeHistograms = new LatencyHistogram[maxPoolSize];
+        for (int i = 0; i < maxPoolSize; i++) {
+            queueWaitHistograms[i] = new LatencyHistogram();
+            runTimeHistograms[i] = new LatencyHistogram();
+        }
+
+        // Crea e inicia los hilos de trabajo mínimos.
+        for (int i = 0; i < corePoolSize; i++) {
+            addWorker();
+        }
+    }
+
+    private MyExecutorService(ThreadFactory virtualThreadFactory, Semaphore concurrencyLimit) {
+        this.corePoolSize = 0;
+        this.maxPoolSize = 0;
+        this.keepAliveNanos = 0L;
+        this.threads = new AtomicReferenceArray<>(0);
+        this.taskQueue = null;
+        this.virtualThreadFactory = virtualThreadFactory;
+        this.concurrencyLimit = concurrencyLimit;
+        this.queueWaitHistograms = new LatencyHistogram[0];
+        this.runTimeHistograms = new LatencyHistogram[0];
+    }
+
+    /**
+     * Crea un servicio elástico: arranca con 'corePoolSize' hilos y, cuando hay tareas
+     * esperando y ningún hilo libre, crea más hasta 'maxPoolSize'. Los hilos extra que pasan
+     * 'keepAliveTime' sin trabajo se retiran, así el pool se ajusta a la carga sin reiniciarlo.
+     * @param corePoolSize Los hilos que se mantienen siempre (al menos 1).
+     * @param maxPoolSize El máximo de hilos simultáneos.
+     * @param keepAliveTime Cuánto espera un hilo extra sin trabajo antes de terminar.
+     * @param unit La unidad de 'keepAliveTime'.
+     */
+    public static MyExecutorService newElasticService(int corePoolSize, int maxPoolSize, long keepAliveTime, TimeUnit unit) {
+        return new MyExecutorService(corePoolSize, maxPoolSize, unit.toNanos(keepAliveTime), new MonitorTaskQueue());
+    }
+
+    /**
+     * Crea un servicio en el que cada hilo tiene su propia cola y roba tareas de las
+     * demás cuando se queda sin trabajo (ver {@link WorkStealingTaskQueue}).
+     * @param poolSize El número de hilos en el pool.
+     */
+    public static MyExecutorService newWorkStealingService(int poolSize) {
+        return new MyExecutorService(poolSize, poolSize, 0L, new WorkStealingTaskQueue(poolSize));
+    }
+
+    /**
+     * Como {@link #newWorkStealingService(int)}, pero los hilos sin trabajo siguen buscando
+     * un rato antes de dormirse, según 'idleStrategy'.
+     */
+    public static MyExecutorService newWorkStealingService(int poolSize, IdleStrategy idleStrategy) {
+        return new MyExecutorService(poolSize, poolSize, 0L, new WorkStealingTaskQueue(poolSize, idleStrategy));
+    }
+
+    /**
+     * Crea un servicio con una cola acotada y sin locks (ver {@link RingBufferTaskQueue}).
+     * @param poolSize El número de hilos en el pool.
+     * @param capacity El número máximo de tareas en cola; debe ser potencia de dos.
+     * @param fullQueuePolicy Qué hacer con submit() cuando la cola está llena.
+     */
+    public static MyExecutorService newBoundedService(int poolSize, int capacity, FullQueuePolicy fullQueuePolicy) {
+        return new MyExecutorService(poolSize, poolSize, 0L, new RingBufferTaskQueue(poolSize, capacity, fullQueuePolicy));
+    }
+
+    /**
+     * Como {@link #newBoundedService(int, int, FullQueuePolicy)}, pero los hilos sin trabajo
+     * siguen buscando un rato antes de dormirse, según 'idleStrategy'. Con SPIN_THEN_PARK o
+     * SPIN_YIELD_PARK una tarea que llega mientras el hilo espera activamente se recoge sin
+     * ninguna llamada al sistema operativo, ni en submit() ni en el trabajador.
+     */
+    public static MyExecutorService newBoundedService(int poolSize, int capacity, FullQueuePolicy fullQueuePolicy,
+                                                      IdleStrategy idleStrategy) {
+        return new MyExecutorService(poolSize, poolSize, 0L,
+                new RingBufferTaskQueue(poolSize, capacity, fullQueuePolicy, idleStrategy));
+    }
+
+    /**
+     * Crea un servicio que atiende primero las tareas más urgentes (ver {@link PriorityTaskQueue}).
+     * Las tareas se envían con {@link #submit(Runnable, TaskPriority)}; las que se envían sin
+     * prioridad son {@link TaskPriority#NORMAL}.
+     * @param poolSize El número de hilos en el pool.
+     * @param agingTime Cuánto puede esperar una tarea poco urgente antes de pasar delante.
+     * @param unit La unidad de 'agingTime'.
+     */
+    public static MyExecutorService newPriorityService(int poolSize, long agingTime, TimeUnit unit) {
+        return new MyExecutorService(poolSize, poolSize, 0L, new PriorityTaskQueue(poolSize, unit.toNanos(agingTime)));
+    }
+
+    /**
+     * Crea un servicio que ejecuta cada tarea en un hilo virtual nuevo, sin límite de concurrencia.
+     *
+     * Un hilo virtual que se bloquea (sleep, E/S, esperas) libera su hilo de plataforma para
+     * otra tarea, así que las tareas que pasan casi todo el tiempo esperando ya no quedan
+     * limitadas por el tamaño de un pool.
+     */
+    public static MyExecutorService newVirtualThreadService() {
+        return new MyExecutorService(Thread.ofVirtual().name("VirtualWorker-", 1).factory(), null);
+    }
+
+    /**
+     * Como {@link #newVirtualThreadService()}, pero como mucho 'maxConcurrency' tareas se
+     * ejecutan a la vez; el resto espera en un semáforo (dentro de su hilo virtual, así que
+     * submit() no se bloquea).
+     * @param maxConcurrency El número máximo de tareas ejecutándose simultáneamente.
+     */
+    public static MyExecutorService newVirtualThreadService(int maxConcurrency) {
+        return new MyExecutorService(Thread.ofVirtual().name("VirtualWorker-", 1).factory(), new Semaphore(maxConcurrency));
+    }
+
+    /**
+     * Envía una tarea para su ejecución.
+     * @param task La tarea (Runnable) a ejecutar.
+     * @throws ServiceClosedException si el servicio ha sido apagado.
+     * @throws TaskRejectedException si la cola acotada está llena y su política es rechazar.
+     */
+    public void submit(Runnable task) {
+        if (virtualThreadFactory != null) {
+            startVirtualThread(task);
+            return;
+        }
+        taskQueue.put(stamp(task), currentWorkerIndex());
+        if (maxPoolSize > corePoolSize) {
+            growIfNeeded(1);
+        }
+    }
+
+    /**
+     * Envía una tarea que devuelve un resultado. El Future devuelto publica el resultado con
+     * un único compareAndSet y no reserva un nodo por cada hilo que espere en get().
+     * @param task La tarea (Callable) a ejecutar.
+     * @return Un Future para obtener el resultado o cancelar la tarea.
+     * @throws ServiceClosedException si el servicio ha sido apagado.
+     * @throws TaskRejectedException si la cola acotada está llena y su política es rechazar.
+     */
+    public <T> Future<T> submit(Callable<T> task) {
+        MyFutureTask<T> future = new MyFutureTask<>(task);
+        submit((Runnable) future);
+        return future;
+    }
+
+    /**
+     * Envía una tarea con una prioridad. Solo tiene efecto en un servicio creado con
+     * {@link #newPriorityService(int, long, TimeUnit)}; en los demás modos se ignora.
+     * @param task La tarea (Runnable) a ejecutar.
+     * @param priority La prioridad de la tarea.
+     * @throws ServiceClosedException si el servicio ha sido apagado.
+     */
+    public void submit(Runnable task, TaskPriority priority) {
+        if (taskQueue instanceof PriorityTaskQueue priorityQueue) {
+            priorityQueue.put(stamp(task), priority);
+        } else {
+            submit(task);
+        }
+    }
+
+    /**
+     * Como {@link #submit(Callable)}, pero con una prioridad (ver {@link #submit(Runnable, TaskPriority)}).
+     */
+    public <T> Future<T> submit(Callable<T> task, TaskPriority priority) {
+        MyFutureTask<T> future = new MyFutureTask<>(task);
+        submit(future, priority);
+        return future;
+    }
+
+    /**
+     * Envía un lote de tareas de una sola vez. Con la cola de un único lock, todo el lote
+     * entra con una sola adquisición del monitor y solo se despierta a tantos hilos como
+     * hagan falta, en lugar de pagar un synchronized y un notify() por cada tarea.
+     * @param tasks Las tareas (Runnable) a ejecutar.
+     * @throws ServiceClosedException si el servicio ha sido apagado.
+     * @throws TaskRejectedException si la cola acotada se llena y su política es rechazar.
+     */
+    public void submitAll(Collection<? extends Runnable> tasks) {
+        if (tasks.isEmpty()) {
+            return;
+        }
+        if (virtualThreadFactory != null) {
+            for (Runnable task : tasks) {
+                startVirtualThread(task);
+            }
+            return;
+        }
+        if (metricsEnabled) {
+            List<Runnable> stamped = new ArrayList<>(tasks.size());
+            for (Runnable task : tasks) {
+                stamped.add(stamp(task));
+            }
+            taskQueue.putAll(stamped, currentWorkerIndex());
+        } else {
+            taskQueue.putAll(tasks, currentWorkerIndex());
+        }
+        if (maxPoolSize > corePoolSize) {
+            // Como mucho un hilo nuevo por tarea del lote.
+            int added = 0;
+            while (added < tasks.size() && growIfNeeded(tasks.size())) {
+                added++;
+            }
+        }
+    }
+
+    /**
+     * Como {@link #submit(Runnable)}, pero nunca se queda esperando hueco ni ejecuta la tarea en
+     * el hilo que llama, aunque la cola acotada lo diga su política. Sirve para que una tarea se
+     * vuelva a encolar a sí misma desde un trabajador: si todos esperasen hueco en una cola
+     * llena, nadie la vaciaría.
+     * @return false si el servicio está apagado o la cola está llena (la tarea no se ha enviado).
+     */
+    boolean trySubmit(Runnable task) {
+        if (virtualThreadFactory != null || !(taskQueue instanceof RingBufferTaskQueue ringBuffer)) {
+            // Las demás colas no tienen límite: encolar nunca espera.
+            try {
+                submit(task);
+                return true;
+            } catch (ServiceClosedException e) {
+                return false;
+            }
+        }
+        if (!ringBuffer.tryPut(stamp(task), currentWorkerIndex())) {
+            return false;
+        }
+        if (maxPoolSize > corePoolSize) {
+            growIfNeeded(1);
+        }
+        return true;
+    }
+
+    /**
+     * Inicia el apagado del servicio. Las tareas en cola se completarán,
+     * pero no se aceptarán nuevas tareas.
+     */
+    public void shutdown() {
+        isShutdown = true;
+        if (taskQueue != null) {
+            taskQueue.close();
+        }
+    }
+
+    /**
+     * @return El número de hilos vivos en este momento (en modo virtual, las tareas en curso).
+     */
+    public int getPoolSize() {
+        return liveWorkers.get();
+    }
+
+    /**
+     * @return El número de hilos vivos que están esperando una tarea.
+     */
+    public int getIdleCount() {
+        return taskQueue != null ? taskQueue.idleWorkerCount() : 0;
+    }
+
+    /**
+     * Empieza a medir, para cada tarea enviada a partir de ahora, cuánto espera en la cola y
+     * cuánto tarda en ejecutarse. Cada hilo registra sus tiempos en sus propios histogramas sin
+     * locks; el coste es una pequeña envoltura y tres lecturas de System.nanoTime() por tarea.
+     * En el modo de hilos virtuales no hay trabajadores y no se registra nada.
+     */
+    public void enableMetrics() {
+        metricsEnabled = true;
+    }
+
+    /**
+     * @return Los tiempos de espera en cola de todos los hilos, combinados.
+     */
+    public LatencyHistogram.Snapshot getQueueWaitSnapshot() {
+        return mergeSnapshots(queueWaitHistograms);
+    }
+
+    /**
+     * @return Los tiempos de ejecución de las tareas de todos los hilos, combinados.
+     */
+    public LatencyHistogram.Snapshot getRunTimeSnapshot() {
+        return mergeSnapshots(runTimeHistograms);
+    }
+
+    private static LatencyHistogram.Snapshot mergeSnapshots(LatencyHistogram[] histograms) {
+        LatencyHistogram.Snapshot merged = LatencyHistogram.Snapshot.empty();
+        for (LatencyHistogram histogram : histograms) {
+            merged = merged.merge(histogram.snapshot());
+        }
+        return merged;
+    }
+
+    /**
+     * Si las métricas están activas, envuelve la tarea con el instante en que se envía.
+     */
+    private Runnable stamp(Runnable task) {
+        return metricsEnabled ? new TimedTask(task, System.nanoTime()) : task;
+    }
+
+    /**
+     * @return Cuántas tareas de esa prioridad se han ejecutado, o 0 si el servicio no tiene prioridades.
+     */
+    public long getRunCount(TaskPriority priority) {
+        return taskQueue instanceof PriorityTaskQueue priorityQueue ? priorityQueue.runCount(priority) : 0L;
+    }
+
+    /**
+     * @return Cuántas de ellas se adelantaron a tareas más urgentes por llevar demasiado tiempo esperando.
+     */
+    public long getAgedRunCount(TaskPriority priority) {
+        return taskQueue instanceof PriorityTaskQueue priorityQueue ? priorityQueue.agedRunCount(priority) : 0L;
+    }
+
+    /**
+     * Arranca un hilo virtual para la tarea. Las tareas ya arrancadas terminan aunque
+     * se llame a shutdown(), igual que las que quedan en la cola en los otros modos.
+     */
+    private void startVirtualThread(Runnable task) {
+        if (isShutdown) {
+            throw new ServiceClosedException("El servicio está apagado. No se aceptan nuevas tareas.");
+        }
+        liveWorkers.incrementAndGet();
+        virtualThreadFactory.newThread(() -> runOnVirtualThread(task)).start();
+    }
+
+    private void runOnVirtualThread(Runnable task) {
+        try {
+            if (concurrencyLimit != null) {
+                concurrencyLimit.acquireUninterruptibly();
+            }
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                // Igual que en WorkerThread: la excepción de una tarea no afecta a las demás.
+                e.printStackTrace();
+            } finally {
+                if (concurrencyLimit != null) {
+                    concurrencyLimit.release();
+                }
+            }
+        } finally {
+            liveWorkers.decrementAndGet();
+        }
+    }
+
+    /**
+     * Añade un hilo si hay más tareas esperando que hilos libres para recogerlas.
+     * Las comprobaciones van de la más barata a la más cara: el contador de hilos vivos y el
+     * de hilos dormidos se leen sin lock; si hay al menos tantos hilos dormidos como tareas
+     * recién enviadas, ni siquiera se consulta el tamaño de la cola.
+     * @param submitted El número de tareas que se acaban de enviar.
+     * @return true si se ha añadido un hilo.
+     */
+    private boolean growIfNeeded(int submitted) {
+        if (liveWorkers.get() >= maxPoolSize) {
+            return false;
+        }
+        int idle = taskQueue.idleWorkerCount();
+        if (idle >= submitted || taskQueue.size() <= idle) {
+            return false;
+        }
+        return addWorker();
+    }
+
+    /**
+     * Reserva un hueco en el contador de hilos vivos (sin pasar de 'maxPoolSize') y arranca un
+     * hilo en la primera posición libre.
+     * @return true si se ha arrancado un hilo.
+     */
+    private boolean addWorker() {
+        int live;
+        do {
+            live = liveWorkers.get();
+            if (live >= maxPoolSize || isShutdown) {
+                return false;
+            }
+        } while (!liveWorkers.compareAndSet(live, live + 1));
+
+        // Hay una posición libre garantizada, aunque un hilo que se está retirando puede
+        // tardar un instante en dejarla: por eso se reintenta hasta encontrarla.
+        while (true) {
+            for (int i = 0; i < maxPoolSize; i++) {
+                if (threads.get(i) == null) {
+                    WorkerThread worker = new WorkerThread(i);
+                    if (threads.compareAndSet(i, null, worker)) {
+                        worker.start();
+                        return true;
+                    }
+                }
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Un hilo sin trabajo intenta retirarse. Solo lo consigue si el pool sigue por encima del
+     * mínimo; el compareAndSet evita que dos hilos se retiren a la vez y bajen de 'corePoolSize'.
+     */
+    private boolean tryRetire(WorkerThread worker) {
+        int live = liveWorkers.get();
+        while (live > corePoolSize) {
+            if (liveWorkers.compareAndSet(live, live - 1)) {
+                threads.set(worker.index, null);
+                return true;
+            }
+            live = liveWorkers.get();
+        }
+        return false;
+    }
+
+    /**
+     * Si quien llama es uno de nuestros hilos de trabajo, devuelve su índice; si no, -1.
+     * Permite que las tareas que envían otras tareas las dejen en la cola de su propio hilo.
+     */
+    private int currentWorkerIndex() {
+        if (Thread.currentThread() instanceof WorkerThread worker && worker.getService() == this) {
+            return worker.index;
+        }
+        return -1;
+    }
+
+    /**
+     * Una tarea junto con el instante (System.nanoTime) en que se envió.
+     */
+    private static final class TimedTask implements Runnable {
+        final Runnable task;
+        final long submittedAt;
+
+        TimedTask(Runnable task, long submittedAt) {
+            this.task = task;
+            this.submittedAt = submittedAt;
+        }
+
+        @Override
+        public void run() {
+            task.run();
+        }
+    }
+
+    /**
+     * Hilo de trabajo que toma tareas de la cola y las ejecuta.
+     */
+    private class WorkerThread extends Thread {
+        private final int index;
+        // true si el hilo terminó por inactividad (ya se descontó de 'liveWorkers' al retirarse).
+        private boolean retired = false;
+
+        WorkerThread(int index) {
+            this.index = index;
+        }
+
+        MyExecutorService getService() {
+            return MyExecutorService.this;
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                // Bloquea hasta que haya una tarea; null significa que el hilo debe terminar.
+                Runnable task = nextTask();
+                if (task == null) {
+                    break;
+                }
+
+                // Solo las tareas enviadas con las métricas activas llevan su instante de envío.
+                boolean measured = task instanceof TimedTask;
+                long startedAt = 0L;
+                if (task instanceof TimedTask timed) {
+                    startedAt = System.nanoTime();
+                    queueWaitHistograms[index].record(startedAt - timed.submittedAt);
+                    task = timed.task;
+                }
+
+                // Como ThreadPoolExecutor.runWorker: una interrupción que dejó la tarea anterior (por
+                // ejemplo, un cancel(true) que llegó tarde) no debe afectar a esta.
+                Thread.interrupted();
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    // Captura excepciones en tiempo de ejecución de la tarea para que el hilo no muera.
+                    e.printStackTrace();
+                } finally {
+                    if (measured) {
+                        runTimeHistograms[index].record(System.nanoTime() - startedAt);
+                    }
+                }
+            }
+
+            if (!retired) {
+                threads.set(index, null);
+                liveWorkers.decrementAndGet();
+            }
+        }
+
+        /**
+         * En un pool fijo, espera indefinidamente. En uno elástico, espera como mucho
+         * 'keepAliveNanos' y, si no llega trabajo, intenta retirarse.
+         * @return La siguiente tarea, o null si el hilo debe terminar.
+         */
+        private Runnable nextTask() {
+            if (maxPoolSize == corePoolSize) {
+                return taskQueue.take(index);
+            }
+            while (true) {
+                Runnable task = taskQueue.poll(index, keepAliveNanos);
+                if (task != null) {
+                    return task;
+                }
+                if (isShutdown) {
+                    // Apagado: vaciamos lo que quede y terminamos (take() devuelve null al final).
+                    return taskQueue.take(index);
+                }
+                if (tryRetire(this)) {
+                    retired = true;
+                    return null;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package tutexercises;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * El 'Future' que devuelve MyExecutorService.submit(Callable): envuelve un Callable como
+ * Runnable para meterlo en la cola y guarda su resultado para quien llame a get().
+ *
+ * Es más ligero que java.util.concurrent.FutureTask:
+ * <ul>
+ *   <li><b>Un único campo para estado y resultado:</b> 'outcome' vale null mientras la tarea
+ *       está pendiente, y un solo compareAndSet (con un VarHandle) publica a la vez que ha
+ *       terminado y con qué valor. Solo se reserva memoria extra si la tarea falla.</li>
+ *   <li><b>Sin nodos por cada hilo en espera:</b> en lugar de una lista enlazada de nodos,
+ *       cada hilo que espera en get() se apunta intercambiándose con el campo 'waiter' y
+ *       recuerda, en una variable local de su propia pila, al hilo que había antes. Al
+ *       terminar la tarea se despierta al último; este despierta al anterior, y así en cadena.</li>
+ * </ul>
+ *
+ * @param <T> El tipo del resultado del Callable.
+ */
+class MyFutureTask<T> implements Future<T>, Runnable {
+
+    // Valores especiales de 'outcome'. Al ser privados, ningún resultado real puede confundirse con ellos.
+    private static final Object NULL_RESULT = new Object();
+    private static final Object CANCELLED = new Object();
+    // cancel(true) está interrumpiendo al hilo que ejecuta la tarea; pasa a INTERRUPTED al acabar.
+    private static final Object INTERRUPTING = new Object();
+    // Cancelada con cancel(true), que llegó a interrumpir al hilo que la ejecutaba.
+    private static final Object INTERRUPTED = new Object();
+
+    private static final VarHandle OUTCOME;
+    private static final VarHandle RUNNER;
+    private static final VarHandle WAITER;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            OUTCOME = lookup.findVarHandle(MyFutureTask.class, "outcome", Object.class);
+            RUNNER = lookup.findVarHandle(MyFutureTask.class, "runner", Thread.class);
+            WAITER = lookup.findVarHandle(MyFutureTask.class, "waiter", Thread.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Callable<T> callable;
+    // null = pendiente; NULL_RESULT, el resultado, un Failure, CANCELLED, INTERRUPTING o INTERRUPTED = terminada.
+    private volatile Object outcome;
+    // El hilo que está ejecutando call(), para poder interrumpirlo con cancel(true).
+    private volatile Thread runner;
+    // El último hilo que se ha puesto a esperar en get(); cada uno recuerda al anterior.
+    private volatile Thread waiter;
+
+    MyFutureTask(Callable<T> callable) {
+        this.callable = callable;
+    }
+
+    @Override
+    public void run() {
+        // Solo un hilo puede ejecutar la tarea, y nunca si ya está cancelada.
+        if (outcome != null || !RUNNER.compareAndSet(this, null, Thread.currentThread())) {
+            return;
+        }
+        try {
+            if (outcome == null) {
+                Object result;
+                try {
+                    T value = callable.call();
+                    result = value == null ? NULL_RESULT : value;
+                } catch (Throwable e) {
+                    result = new Failure(e);
+                }
+                if (OUTCOME.compareAndSet(this, null, result)) {
+                    wakeWaiters();
+                }
+            }
+        } finally {
+            runner = null;
+            // Si cancel(true) nos está interrumpiendo, esperamos a que termine. Después, si nos
+            // llegó a interrumpir (aunque ya hubiera terminado antes de llegar aquí), limpiamos la
+            // interrupción para que no le llegue a la siguiente tarea de este mismo hilo.
+            while (outcome == INTERRUPTING) {
+                Thread.onSpinWait();
+            }
+            if (outcome == INTERRUPTED) {
+                Thread.interrupted();
+            }
+        }
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        if (!OUTCOME.compareAndSet(this, null, mayInterruptIfRunning ? INTERRUPTING : CANCELLED)) {
+            return false;
+        }
+        if (mayInterruptIfRunning) {
+            Thread t = runner;
+            try {
+                if (t != null) {
+                    t.interrupt();
+                }
+            } finally {
+                // Se anota si se interrumpió a alguien, para que ese hilo sepa que debe limpiarlo.
+                outcome = t != null ? INTERRUPTED : CANCELLED;
+            }
+        }
+        wakeWaiters();
+        return true;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        Object o = outcome;
+        return o == CANCELLED || o == INTERRUPTING || o == INTERRUPTED;
+    }
+
+    @Override
+    public boolean isDone() {
+        return outcome != null;
+    }
+
+    @Override
+    public T get() throws InterruptedException, ExecutionException {
+        Object o = outcome;
+        if (o == null) {
+            o = awaitDone(false, 0L);
+        }
+        return report(o);
+    }
+
+    @Override
+    public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        Object o = outcome;
+        if (o == null) {
+            o = awaitDone(true, unit.toNanos(timeout));
+            if (o == null) {
+                throw new TimeoutException();
+            }
+        }
+        return report(o);
+    }
+
+    /**
+     * Espera a que la tarea termine.
+     * @return El valor de 'outcome', o null si se agotó el tiempo.
+     */
+    private Object awaitDone(boolean timed, long nanos) throws InterruptedException {
+        Thread me = Thread.currentThread();
+        long deadline = timed ? System.nanoTime() + nanos : 0L;
+        // El hilo que esperaba antes que nosotros: nos toca despertarlo cuando nos despierten.
+        Thread previous = null;
+        boolean registered = false;
+
+        while (true) {
+            if (Thread.interrupted()) {
+                leave(me, previous, registered);
+                throw new InterruptedException();
+            }
+
+            Object o = outcome;
+            if (o != null) {
+                // Seguimos la cadena: despertamos al que esperaba antes que nosotros.
+                if (previous != null) {
+                    LockSupport.unpark(previous);
+                }
+                return o;
+            }
+
+            if (!registered || waiter != me) {
+                // Nos apuntamos (o volvemos a apuntarnos si alguien que estaba encima se fue)
+                // y volvemos a mirar 'outcome' antes de dormir, para no perder el aviso.
+                Thread older = previous;
+                previous = (Thread) WAITER.getAndSet(this, me);
+                if (registered && older != null && older != previous) {
+                    // Nuestro antiguo predecesor podría haberse quedado sin nadie que lo despierte.
+                    LockSupport.unpark(older);
+                }
+                registered = true;
+                continue;
+            }
+
+            if (timed) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    leave(me, previous, true);
+                    return null;
+                }
+                LockSupport.parkNanos(this, remaining);
+            } else {
+                LockSupport.park(this);
+            }
+        }
+    }
+
+    /**
+     * Un hilo deja de esperar antes de que termine la tarea (timeout o interrupción).
+     * Si es el último de la cadena, se quita devolviendo el campo a su predecesor. Si no,
+     * despierta a su predecesor para que este vuelva a apuntarse y no quede huérfano.
+     */
+    private void leave(Thread me, Thread previous, boolean registered) {
+        if (!registered) {
+            return;
+        }
+        if (!WAITER.compareAndSet(this, me, previous) && previous != null) {
+            LockSupport.unpark(previous);
+        }
+    }
+
+    private void wakeWaiters() {
+        Thread last = (Thread) WAITER.getAndSet(this, null);
+        if (last != null) {
+            LockSupport.unpark(last);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private T report(Object o) throws ExecutionException {
+        if (o == NULL_RESULT) {
+            return null;
+        }
+        if (o == CANCELLED || o == INTERRUPTING || o == INTERRUPTED) {
+            throw new CancellationException();
+        }
+        if (o instanceof Failure failure) {
+            throw new ExecutionException(failure.cause);
+        }
+        return (T) o;
+    }
+
+    /**
+     * Envoltorio para la excepción lanzada por call(); solo se crea si la tarea falla.
+     */
+    private static final class Failure {
+        final Throwable cause;
+
+        Failure(Throwable cause) {
+            this.cause = cause;
+        }
+    }
+}
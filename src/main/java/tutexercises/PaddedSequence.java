@@ -0,0 +1,43 @@
+package tutexercises;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * Un contador atómico 'long' que ocupa él solo su línea de caché.
+ *
+ * En un ring buffer los productores solo tocan la posición de escritura y los consumidores
+ * la de lectura. Si ambos contadores compartieran línea de caché (64 bytes), cada escritura
+ * de un lado invalidaría la caché del otro aunque no usen la misma variable ("false sharing").
+ *
+ * La JVM puede reordenar los campos de una clase, pero nunca mezcla los campos de una clase
+ * con los de su superclase. Por eso el relleno se reparte en una jerarquía: 7 'long' antes
+ * del valor (en la superclase) y 7 después (en la subclase).
+ */
+class PaddedSequence extends PaddedSequenceValue {
+    @SuppressWarnings("unused")
+    private long p9, p10, p11, p12, p13, p14, p15;
+
+    PaddedSequence(long initialValue) {
+        value = initialValue;
+    }
+}
+
+class PaddedSequenceLeftPadding {
+    @SuppressWarnings("unused")
+    private long p1, p2, p3, p4, p5, p6, p7;
+}
+
+class PaddedSequenceValue extends PaddedSequenceLeftPadding {
+    private static final AtomicLongFieldUpdater<PaddedSequenceValue> VALUE =
+            AtomicLongFieldUpdater.newUpdater(PaddedSequenceValue.class, "value");
+
+    protected volatile long value;
+
+    long get() {
+        return value;
+    }
+
+    boolean compareAndSet(long expected, long newValue) {
+        return VALUE.compareAndSet(this, expected, newValue);
+    }
+}
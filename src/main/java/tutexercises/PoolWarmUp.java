@@ -0,0 +1,188 @@
+package tutexercises;
+
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+import com.sun.management.VMOption;
+
+/**
+ * Calienta un ThreadPoolExecutor antes de que lleguen las primeras peticiones reales.
+ *
+ * Un pool recién creado crea sus hilos bajo demanda, y las primeras tareas además cargan
+ * clases y se ejecutan en el intérprete hasta que el JIT compila los métodos calientes
+ * (como CalculationTaskC.doComplexCalculation). Este calentamiento:
+ * <ol>
+ *   <li>Arranca todos los hilos mínimos del pool (prestartAllCoreThreads).</li>
+ *   <li>Envía una tarea de calentamiento por hilo. Las tareas se esperan unas a otras antes
+ *       de empezar, así que cada hilo recibe exactamente una.</li>
+ *   <li>Cada tarea repite la carga de trabajo indicada en rondas. Primero, las rondas mínimas
+ *       para que los métodos calientes se invoquen más veces que el umbral a partir del cual
+ *       el JIT los compila del todo (C2, el "tier 4"): antes, no pueden estar compilados.
+ *       Después, sigue hasta que el JIT deja de compilar (el tiempo total de compilación no
+ *       cambia durante QUIET_ROUNDS rondas seguidas DE ESE HILO), o hasta llegar a
+ *       'maxRounds'. Cada hilo lleva su propia cuenta: que varios hilos terminen una ronda en
+ *       el mismo milisegundo no cuenta como varias rondas tranquilas.</li>
+ *   <li>Cuando todas terminan, el pool está "caliente": {@link #isHot()} devuelve true y
+ *       {@link #awaitHot(long, TimeUnit)} deja de esperar.</li>
+ * </ol>
+ * El calentamiento corre en los propios hilos del pool, así que quien lo lanza no se bloquea.
+ *
+ * El tiempo de compilación es de toda la JVM y solo crece cuando una compilación termina: una
+ * que aún está en marcha parece "tranquila". Por eso no basta por sí solo, y se exige además
+ * el mínimo de rondas.
+ */
+class PoolWarmUp {
+
+    // Rondas seguidas sin compilaciones nuevas para dar el JIT por estabilizado.
+    private static final int QUIET_ROUNDS = 3;
+    // Si la JVM no informa del tiempo de compilación, se hace este número fijo de rondas.
+    private static final int FALLBACK_ROUNDS = 20;
+    // El valor por defecto de -XX:Tier4InvocationThreshold, si no se puede consultar a la JVM.
+    private static final long DEFAULT_TIER4_INVOCATION_THRESHOLD = 5000;
+
+    private final CountDownLatch hot = new CountDownLatch(1);
+    private final AtomicInteger workersWarming;
+    private final CountDownLatch allWorkersReady;
+    private final Runnable workload;
+    private final int minRounds;
+    private final int maxRounds;
+    private final CompilationMXBean compilationBean = ManagementFactory.getCompilationMXBean();
+    private final AtomicInteger roundsRun = new AtomicInteger();
+    private volatile long hotAtNanos;
+    private final long startNanos = System.nanoTime();
+
+    private PoolWarmUp(int workers, Runnable workload, int minRounds, int maxRounds) {
+        this.workersWarming = new AtomicInteger(workers);
+        this.allWorkersReady = new CountDownLatch(workers);
+        this.workload = workload;
+        this.minRounds = minRounds;
+        this.maxRounds = maxRounds;
+    }
+
+    /**
+     * Arranca los hilos mínimos del pool y empieza a calentarlos en segundo plano.
+     * @param pool El pool a calentar (Executors.newFixedThreadPool devuelve uno).
+     * @param workload Una ejecución representativa de las tareas reales; se repite en cada ronda.
+     * @param hotCallsPerRound Cuántas veces invoca una ronda a los métodos calientes. Con él se
+     *                         calculan las rondas mínimas por hilo para pasar el umbral del "tier 4".
+     * @param maxRounds El máximo de rondas por hilo, aunque el JIT no se haya estabilizado (manda
+     *                  sobre el mínimo).
+     * @return El estado del calentamiento, para saber cuándo el pool está caliente.
+     */
+    static PoolWarmUp start(ThreadPoolExecutor pool, Runnable workload, long hotCallsPerRound, int maxRounds) {
+        int workers = pool.getCorePoolSize();
+        pool.prestartAllCoreThreads();
+        long threshold = tier4InvocationThreshold();
+        int minRounds = (int) Math.min(maxRounds, (threshold + hotCallsPerRound - 1) / hotCallsPerRound);
+        PoolWarmUp warmUp = new PoolWarmUp(workers, workload, minRounds, maxRounds);
+        for (int i = 0; i < workers; i++) {
+            pool.execute(warmUp::runOnWorker);
+        }
+        return warmUp;
+    }
+
+    /**
+     * @return true si todos los hilos han terminado de calentarse.
+     */
+    boolean isHot() {
+        return hot.getCount() == 0;
+    }
+
+    /**
+     * Espera a que el pool esté caliente.
+     * @return true si lo está, false si se agotó el tiempo.
+     */
+    boolean awaitHot(long timeout, TimeUnit unit) throws InterruptedException {
+        return hot.await(timeout, unit);
+    }
+
+    /**
+     * @return Las rondas de carga ejecutadas entre todos los hilos.
+     */
+    int roundsRun() {
+        return roundsRun.get();
+    }
+
+    /**
+     * @return Cuánto tardó el pool en estar caliente, en milisegundos, o -1 si aún no lo está.
+     */
+    long warmUpMillis() {
+        return isHot() ? TimeUnit.NANOSECONDS.toMillis(hotAtNanos - startNanos) : -1;
+    }
+
+    private void runOnWorker() {
+        try {
+            // Cada tarea retiene su hilo hasta que todos tienen la suya. Si el pool está
+            // ocupado con otras tareas, no se espera para siempre.
+            allWorkersReady.countDown();
+            allWorkersReady.await(1, TimeUnit.SECONDS);
+
+            // Las rondas tranquilas se cuentan por hilo, en variables locales.
+            long lastCompilationMillis = -1;
+            int quietRounds = 0;
+            for (int round = 1; round <= maxRounds; round++) {
+                workload.run();
+                roundsRun.incrementAndGet();
+                long compilationMillis = totalCompilationMillis();
+                if (compilationMillis < 0) {
+                    // Sin JIT (o sin poder medirlo): un número fijo de rondas.
+                    if (round >= Math.max(minRounds, FALLBACK_ROUNDS)) {
+                        break;
+                    }
+                    continue;
+                }
+                quietRounds = compilationMillis == lastCompilationMillis ? quietRounds + 1 : 0;
+                lastCompilationMillis = compilationMillis;
+                if (round >= minRounds && quietRounds >= QUIET_ROUNDS) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            // Un fallo en la carga de calentamiento no debe impedir que el pool quede listo.
+            e.printStackTrace();
+        } finally {
+            // El último hilo en terminar apunta la hora y da el aviso.
+            if (workersWarming.decrementAndGet() == 0) {
+                hotAtNanos = System.nanoTime();
+                hot.countDown();
+            }
+        }
+    }
+
+    /**
+     * @return El tiempo total que lleva compilando el JIT, o -1 si la JVM no tiene JIT o no
+     *         informa de ese tiempo.
+     */
+    private long totalCompilationMillis() {
+        if (compilationBean == null || !compilationBean.isCompilationTimeMonitoringSupported()) {
+            return -1;
+        }
+        return compilationBean.getTotalCompilationTime();
+    }
+
+    /**
+     * @return Las invocaciones a partir de las cuales HotSpot compila un método con C2:
+     *         -XX:Tier4InvocationThreshold o, sin compilación por niveles, -XX:CompileThreshold.
+     */
+    static long tier4InvocationThreshold() {
+        HotSpotDiagnosticMXBean hotSpot = ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+        if (hotSpot == null) {
+            return DEFAULT_TIER4_INVOCATION_THRESHOLD;
+        }
+        try {
+            VMOption tiered = hotSpot.getVMOption("TieredCompilation");
+            String flag = Boolean.parseBoolean(tiered.getValue()) ? "Tier4InvocationThreshold" : "CompileThreshold";
+            return Long.parseLong(hotSpot.getVMOption(flag).getValue());
+        } catch (IllegalArgumentException e) {
+            // Otra JVM, sin esas opciones (NumberFormatException también es una IllegalArgumentException).
+            return DEFAULT_TIER4_INVOCATION_THRESHOLD;
+        }
+    }
+}
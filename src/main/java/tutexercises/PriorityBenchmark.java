@@ -0,0 +1,90 @@
+package tutexercises;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide cuánto esperan en cola las peticiones interactivas cuando el pool está saturado
+ * de trabajo por lotes, con la cola FIFO original frente a {@link PriorityTaskQueue}.
+ *
+ * Primero se encolan BATCH_TASKS tareas de cálculo (como CalculationTaskC) y, mientras se
+ * ejecutan, se envía una petición interactiva cada milisegundo. Para cada petición se mide
+ * el tiempo entre el submit() y el momento en que empieza a ejecutarse.
+ */
+public class PriorityBenchmark {
+
+    private static final int POOL_SIZE = 4;
+    private static final int BATCH_TASKS = 20_000;
+    private static final long BATCH_TASK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final int INTERACTIVE_TASKS = 200;
+    private static final long AGING_MILLIS = 20;
+
+    public static void main(String[] args) throws InterruptedException {
+        // Pasada previa para que el JIT compile ambas rutas.
+        runTest(false);
+        runTest(true);
+
+        System.out.println("===========================================================================");
+        System.out.println(" QUEUE        p50 WAIT      p99 WAIT      MAX WAIT      BATCH RUNS (AGED)");
+        System.out.println("===========================================================================");
+        System.out.println(runTest(false));
+        System.out.println(runTest(true));
+        System.out.println("===========================================================================");
+        System.out.println("Queue wait of " + INTERACTIVE_TASKS + " interactive requests behind " + BATCH_TASKS
+                + " batch tasks of " + TimeUnit.NANOSECONDS.toMicros(BATCH_TASK_NANOS) + " us, "
+                + POOL_SIZE + " threads, aging " + AGING_MILLIS + " ms");
+    }
+
+    /**
+     * @return Una fila de la tabla de resultados.
+     */
+    private static String runTest(boolean prioritized) throws InterruptedException {
+        MyExecutorService service = prioritized
+                ? MyExecutorService.newPriorityService(POOL_SIZE, AGING_MILLIS, TimeUnit.MILLISECONDS)
+                : new MyExecutorService(POOL_SIZE);
+
+        CountDownLatch done = new CountDownLatch(BATCH_TASKS + INTERACTIVE_TASKS);
+        Runnable batchTask = () -> {
+            busyWait(BATCH_TASK_NANOS);
+            done.countDown();
+        };
+        for (int i = 0; i < BATCH_TASKS; i++) {
+            service.submit(batchTask, TaskPriority.BATCH);
+        }
+
+        long[] waits = new long[INTERACTIVE_TASKS];
+        for (int i = 0; i < INTERACTIVE_TASKS; i++) {
+            final int request = i;
+            final long submittedAt = System.nanoTime();
+            service.submit(() -> {
+                waits[request] = System.nanoTime() - submittedAt;
+                done.countDown();
+            }, TaskPriority.INTERACTIVE);
+            TimeUnit.MILLISECONDS.sleep(1);
+        }
+
+        done.await();
+        service.shutdown();
+
+        Arrays.sort(waits);
+        return String.format(" %-12s %-13s %-13s %-13s %s",
+                prioritized ? "PRIORITY" : "FIFO",
+                TimeUnit.NANOSECONDS.toMicros(waits[INTERACTIVE_TASKS / 2]) + " us",
+                TimeUnit.NANOSECONDS.toMicros(waits[(int) (INTERACTIVE_TASKS * 0.99)]) + " us",
+                TimeUnit.NANOSECONDS.toMicros(waits[INTERACTIVE_TASKS - 1]) + " us",
+                prioritized
+                        ? service.getRunCount(TaskPriority.BATCH) + " (" + service.getAgedRunCount(TaskPriority.BATCH) + ")"
+                        : "n/a");
+    }
+
+    /**
+     * Simula trabajo de CPU sin dormir, para que el hilo siga ocupado.
+     */
+    private static void busyWait(long nanos) {
+        long end = System.nanoTime() + nanos;
+        while (System.nanoTime() < end) {
+            Thread.onSpinWait();
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package tutexercises;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cola con prioridades: un carril (lane) FIFO sin locks por cada {@link TaskPriority}.
+ *
+ * <ul>
+ *   <li>Un trabajador libre atiende siempre el carril más urgente que tenga tareas, así que
+ *       una petición interactiva no espera detrás de miles de tareas por lotes.</li>
+ *   <li><b>Envejecimiento (aging):</b> si un carril menos urgente lleva más de 'agingNanos' sin
+ *       ejecutar nada y su tarea más antigua también ha esperado ese tiempo, una de sus tareas
+ *       pasa delante. Así el trabajo por lotes avanza al menos a ese ritmo aunque nunca deje
+ *       de llegar trabajo interactivo, sin que una cola de lotes muy larga vuelva a ser FIFO.</li>
+ *   <li>Cada carril cuenta cuántas tareas ha ejecutado y cuántas de ellas gracias al
+ *       envejecimiento, con contadores LongAdder que no compiten entre trabajadores.</li>
+ * </ul>
+ *
+ * Dentro de un carril se mantiene el orden FIFO; entre carriles no hay ningún lock global.
+ */
+class PriorityTaskQueue implements TaskQueue {
+
+    private static final TaskPriority[] PRIORITIES = TaskPriority.values();
+
+    private final ConcurrentLinkedQueue<Entry>[] lanes;
+    private final LongAdder[] runCounts;
+    private final LongAdder[] agedRunCounts;
+    // Instante (System.nanoTime) de la última tarea ejecutada de cada carril.
+    private final AtomicLongArray lastRunAt;
+    private final long agingNanos;
+    private final IdleWorkers idleWorkers;
+    private volatile boolean isShutdown = false;
+
+    PriorityTaskQueue(int poolSize, long agingNanos) {
+        // Java no permite crear arrays de un tipo genérico: se crea sin tipo y se convierte.
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        ConcurrentLinkedQueue<Entry>[] created = new ConcurrentLinkedQueue[PRIORITIES.length];
+        this.lanes = created;
+        this.runCounts = new LongAdder[PRIORITIES.length];
+        this.agedRunCounts = new LongAdder[PRIORITIES.length];
+        for (int i = 0; i < PRIORITIES.length; i++) {
+            lanes[i] = new ConcurrentLinkedQueue<>();
+            runCounts[i] = new LongAdder();
+            agedRunCounts[i] = new LongAdder();
+        }
+        this.lastRunAt = new AtomicLongArray(PRIORITIES.length);
+        long now = System.nanoTime();
+        for (int i = 0; i < PRIORITIES.length; i++) {
+            lastRunAt.set(i, now);
+        }
+        this.agingNanos = agingNanos;
+        this.idleWorkers = new IdleWorkers(poolSize);
+    }
+
+    /**
+     * Las tareas enviadas sin prioridad van al carril {@link TaskPriority#NORMAL}.
+     */
+    @Override
+    public void put(Runnable task, int workerIndex) {
+        put(task, TaskPriority.NORMAL);
+    }
+
+    /**
+     * Encola una tarea en el carril de su prioridad.
+     * @throws ServiceClosedException si la cola ya ha sido cerrada.
+     */
+    void put(Runnable task, TaskPriority priority) {
+        if (isShutdown) {
+            throw new ServiceClosedException("El servicio está apagado. No se aceptan nuevas tareas.");
+        }
+
+        ConcurrentLinkedQueue<Entry> lane = lanes[priority.ordinal()];
+        Entry entry = new Entry(task, System.nanoTime());
+        lane.offer(entry);
+
+        // Igual que en WorkStealingTaskQueue: si el apagado llegó mientras encolábamos y
+        // conseguimos retirar la tarea, la rechazamos; si no, un trabajador ya la cogió.
+        if (isShutdown && lane.remove(entry)) {
+            throw new ServiceClosedException("El servicio está apagado. No se aceptan nuevas tareas.");
+        }
+
+        idleWorkers.signalOne();
+    }
+
+    @Override
+    public void putAll(Collection<? extends Runnable> tasks, int workerIndex) {
+        if (isShutdown) {
+            throw new ServiceClosedException("El servicio está apagado. No se aceptan nuevas tareas.");
+        }
+
+        ConcurrentLinkedQueue<Entry> lane = lanes[TaskPriority.NORMAL.ordinal()];
+        long now = System.nanoTime();
+        Entry[] entries = new Entry[tasks.size()];
+        int i = 0;
+        for (Runnable task : tasks) {
+            entries[i] = new Entry(task, now);
+            lane.offer(entries[i++]);
+        }
+
+        if (isShutdown) {
+            boolean retracted = false;
+            for (Entry entry : entries) {
+                retracted |= lane.remove(entry);
+            }
+            if (retracted) {
+                throw new ServiceClosedException("El servicio está apagado. No se aceptan nuevas tareas.");
+            }
+        }
+
+        idleWorkers.signal(entries.length);
+    }
+
+    @Override
+    public Runnable take(int workerIndex) {
+        return poll(workerIndex, Long.MAX_VALUE);
+    }
+
+    @Override
+    public Runnable poll(int workerIndex, long timeoutNanos) {
+        // Long.MAX_VALUE significa "sin límite de tiempo".
+        boolean timed = timeoutNanos != Long.MAX_VALUE;
+        long deadline = timed ? System.nanoTime() + timeoutNanos : 0L;
+        while (true) {
+            // Se lee el estado ANTES de buscar, como en WorkStealingTaskQueue.
+            boolean wasShutdown = isShutdown;
+            Runnable task = findTask();
+            if (task != null) {
+                return task;
+            }
+            if (wasShutdown) {
+                return null;
+            }
+
+            long remaining = timed ? deadline - System.nanoTime() : Long.MAX_VALUE;
+            if (remaining <= 0) {
+                return null;
+            }
+
+            idleWorkers.prepareToPark(workerIndex);
+            task = findTask();
+            if (task != null || isShutdown) {
+                idleWorkers.cancelPark(workerIndex);
+                if (task != null) {
+                    return task;
+                }
+                continue;
+            }
+            if (timed) {
+                idleWorkers.parkNanos(workerIndex, remaining);
+            } else {
+                idleWorkers.park(workerIndex);
+            }
+        }
+    }
+
+    /**
+     * Suma el tamaño de todos los carriles. Es aproximado y recorre cada carril.
+     */
+    @Override
+    public int size() {
+        int size = 0;
+        for (ConcurrentLinkedQueue<Entry> lane : lanes) {
+            size += lane.size();
+        }
+        return size;
+    }
+
+    @Override
+    public int idleWorkerCount() {
+        return idleWorkers.idleCount();
+    }
+
+    @Override
+    public void close() {
+        isShutdown = true;
+        idleWorkers.signalAll();
+    }
+
+    /**
+     * @return Cuántas tareas de esta prioridad se han ejecutado (o están ejecutándose).
+     */
+    long runCount(TaskPriority priority) {
+        return runCounts[priority.ordinal()].sum();
+    }
+
+    /**
+     * @return Cuántas de esas tareas pasaron delante de carriles más urgentes por envejecimiento.
+     */
+    long agedRunCount(TaskPriority priority) {
+        return agedRunCounts[priority.ordinal()].sum();
+    }
+
+    /**
+     * Primero un carril menos urgente que esté "pasando hambre" (el más urgente de ellos) y,
+     * si no hay ninguno, el carril más urgente con tareas.
+     */
+    private Runnable findTask() {
+        long now = 0L;
+        for (int i = 1; i < lanes.length; i++) {
+            Entry head = lanes[i].peek();
+            if (head != null) {
+                if (now == 0L) {
+                    now = System.nanoTime();
+                }
+                long lastRun = lastRunAt.get(i);
+                // El compareAndSet deja que solo un trabajador se adelante por cada periodo de hambre.
+                if (now - lastRun > agingNanos && now - head.enqueuedAt > agingNanos
+                        && lastRunAt.compareAndSet(i, lastRun, now)) {
+                    Entry entry = lanes[i].poll();
+                    if (entry != null) {
+                        runCounts[i].increment();
+                        // Solo cuenta como envejecida si de verdad pasó delante de algo más urgente.
+                        if (hasWorkMoreUrgentThan(i)) {
+                            agedRunCounts[i].increment();
+                        }
+                        return entry.task;
+                    }
+                }
+            }
+        }
+
+        for (int i = 0; i < lanes.length; i++) {
+            Entry entry = lanes[i].poll();
+            if (entry != null) {
+                runCounts[i].increment();
+                if (i > 0) {
+                    // El carril más urgente nunca envejece, así que no hace falta apuntar cuándo corrió.
+                    lastRunAt.set(i, System.nanoTime());
+                }
+                return entry.task;
+            }
+        }
+        return null;
+    }
+
+    private boolean hasWorkMoreUrgentThan(int lane) {
+        for (int i = 0; i < lane; i++) {
+            if (!lanes[i].isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Una tarea encolada junto con el instante en que entró, para el envejecimiento.
+     */
+    private static final class Entry {
+        final Runnable task;
+        final long enqueuedAt;
+
+        Entry(Runnable task, long enqueuedAt) {
+            this.task = task;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package tutexercises;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.CountDownLatch;
+
+import tuts.common.ResultCell;
+import tuts.common.ValueReturningTaskA;
+
+/**
+ * Mide cuántas lecturas por segundo hacen N lectores (de 1 a 64) de un resultado YA publicado:
+ * <ul>
+ *   <li>MONITOR: `ValueReturningTaskA.getSum()`, que entra en `synchronized` en cada lectura.</li>
+ *   <li>CELL: `ResultCell.get()`, que solo hace una lectura "acquire".</li>
+ * </ul>
+ * Todos los lectores leen el mismo objeto durante el mismo tiempo, a la vez.
+ */
+public class ResultCellBenchmark {
+
+    private static final int[] READERS = {1, 2, 4, 8, 16, 32, 64};
+    private static final long RUN_MILLIS = 200;
+    private static final int ROUNDS = 3;
+    private static final int EXPECTED = 2 + 3;
+
+    public static void main(String[] args) throws Exception {
+        // Pasadas previas para que el JIT compile ambos caminos.
+        runTest(false, 4);
+        runTest(true, 4);
+
+        System.out.println("=======================================================");
+        System.out.println(" READERS   MONITOR READS/S   CELL READS/S      SPEEDUP");
+        System.out.println("=======================================================");
+        for (int readers : READERS) {
+            double monitor = 0;
+            double cell = 0;
+            for (int round = 0; round < ROUNDS; round++) {
+                monitor = Math.max(monitor, runTest(false, readers));
+                cell = Math.max(cell, runTest(true, readers));
+            }
+            System.out.printf(" %-9d %-17.0f %-17.0f x%.1f%n", readers, monitor, cell, cell / monitor);
+        }
+        System.out.println("=======================================================");
+        System.out.println("Best of " + ROUNDS + " runs of " + RUN_MILLIS + " ms, "
+                + Runtime.getRuntime().availableProcessors() + " CPU(s)");
+    }
+
+    /**
+     * @return Lecturas por segundo, sumando todos los lectores.
+     */
+    private static double runTest(boolean useCell, int readers) throws Exception {
+        ResultCell<Integer> cell = new ResultCell<>();
+        cell.set(EXPECTED);
+        ValueReturningTaskA task = new ValueReturningTaskA(2, 3, 0);
+        runQuietly(task);
+
+        long[] reads = new long[readers];
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[readers];
+        long[] deadline = new long[1];
+        for (int i = 0; i < readers; i++) {
+            int reader = i;
+            threads[i] = new Thread(() -> {
+                try {
+                    start.await();
+                    long count = 0;
+                    long checksum = 0;
+                    // Se mira el reloj cada 1024 lecturas, para no medir System.nanoTime().
+                    do {
+                        for (int j = 0; j < 1024; j++) {
+                            checksum += useCell ? cell.get() : task.getSum();
+                        }
+                        count += 1024;
+                    } while (System.nanoTime() < deadline[0]);
+                    if (checksum != count * EXPECTED) {
+                        throw new IllegalStateException("Wrong checksum: " + checksum);
+                    }
+                    reads[reader] = count;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, "Reader-" + i);
+            threads[i].start();
+        }
+
+        long begin = System.nanoTime();
+        deadline[0] = begin + RUN_MILLIS * 1_000_000L;
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long elapsed = System.nanoTime() - begin;
+
+        long total = 0;
+        for (long count : reads) {
+            total += count;
+        }
+        return total / (elapsed / 1e9);
+    }
+
+    /**
+     * Ejecuta la tarea del productor sin sus mensajes por consola, que aquí no interesan.
+     */
+    private static void runQuietly(Runnable task) {
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            task.run();
+        } finally {
+            System.setOut(out);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package tutexercises;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compara la cola original (LinkedList + synchronized) con la cola acotada sin locks
+ * ({@link RingBufferTaskQueue}) en dos métricas:
+ * <ul>
+ *   <li><b>Memoria reservada por tarea:</b> la LinkedList crea un nodo por cada submit().</li>
+ *   <li><b>Latencia de submit():</b> percentiles p50/p99/p99.9 de cada llamada.</li>
+ * </ul>
+ * La memoria se mide con la extensión de HotSpot de ThreadMXBean, que cuenta los bytes
+ * reservados por cada hilo (productor y trabajadores).
+ */
+public class RingBufferBenchmark {
+
+    private static final int POOL_SIZE = 4;
+    private static final int CAPACITY = 1024;
+    private static final int TASKS = 1_000_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        // Pasadas previas para que el JIT compile ambas rutas.
+        runTest(false);
+        runTest(true);
+
+        System.out.println("=====================================================================");
+        System.out.println(" QUEUE          BYTES/TASK   p50 SUBMIT   p99 SUBMIT   p99.9 SUBMIT");
+        System.out.println("=====================================================================");
+        System.out.println(runTest(false));
+        System.out.println(runTest(true));
+        System.out.println("=====================================================================");
+    }
+
+    /**
+     * Envía TASKS tareas desde un único productor y mide memoria y latencia.
+     * @return Una fila de la tabla de resultados.
+     */
+    private static String runTest(boolean bounded) throws InterruptedException {
+        MyExecutorService service = bounded
+                ? MyExecutorService.newBoundedService(POOL_SIZE, CAPACITY, FullQueuePolicy.BLOCK)
+                : new MyExecutorService(POOL_SIZE);
+
+        // Se reutiliza siempre la misma tarea para que la única memoria reservada sea la de la cola.
+        LongAdder completed = new LongAdder();
+        Runnable task = completed::increment;
+        long[] latencies = new long[TASKS];
+
+        com.sun.management.ThreadMXBean threadBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long[] threadIds = threadBean.getAllThreadIds();
+        long allocatedBefore = sum(threadBean.getThreadAllocatedBytes(threadIds));
+
+        for (int i = 0; i < TASKS; i++) {
+            long start = System.nanoTime();
+            service.submit(task);
+            latencies[i] = System.nanoTime() - start;
+        }
+        while (completed.sum() < TASKS) {
+            TimeUnit.MICROSECONDS.sleep(100);
+        }
+
+        long allocatedAfter = sum(threadBean.getThreadAllocatedBytes(threadIds));
+        service.shutdown();
+
+        Arrays.sort(latencies);
+        return String.format(" %-14s %-12.1f %-12s %-12s %s",
+                bounded ? "RING-BUFFER" : "SINGLE-LOCK",
+                (allocatedAfter - allocatedBefore) / (double) TASKS,
+                latencies[(int) (TASKS * 0.50)] + " ns",
+                latencies[(int) (TASKS * 0.99)] + " ns",
+                latencies[(int) (TASKS * 0.999)] + " ns");
+    }
+
+    private static long sum(long[] values) {
+        long total = 0;
+        for (long value : values) {
+            // -1 significa que el hilo ya no existe o que la medición no está disponible.
+            if (value > 0) {
+                total += value;
+            }
+        }
+        return total;
+    }
+}
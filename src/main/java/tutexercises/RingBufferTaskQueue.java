@@ -0,0 +1,385 @@
+package tutexercises;
+
+import java.util.Collection;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Cola acotada, sin locks, para varios productores y varios consumidores (MPMC), basada en
+ * un array circular ("ring buffer") de tamaño potencia de dos.
+ *
+ * Frente a la LinkedList de {@link MonitorTaskQueue}:
+ * <ul>
+ *   <li>No crea un nodo por tarea: el array se reserva una vez y se reutiliza.</li>
+ *   <li>Tiene un límite: cuando se llena, se aplica la {@link FullQueuePolicy} configurada
+ *       en lugar de dejar crecer la memoria.</li>
+ *   <li>No hay lock: productores y consumidores se reparten las posiciones con compareAndSet.</li>
+ * </ul>
+ *
+ * <b>Cómo funciona:</b> cada celda tiene un número de secuencia que indica de quién es el turno.
+ * Si la secuencia de la celda es igual a la posición de escritura, la celda está libre para un
+ * productor; si es igual a la posición + 1, contiene una tarea lista para un consumidor. Tras
+ * usarla, cada lado avanza la secuencia para cederle el turno al otro en la siguiente vuelta.
+ *
+ * <b>Apagado:</b> si el apagado llega mientras un productor publica, puede que los trabajadores
+ * ya hayan vaciado la cola y terminado. El productor intenta entonces recuperar SU tarea de la
+ * celda (un compareAndSet a null): si lo consigue, la rechaza; si no, es que un trabajador ya la
+ * cogió. Las tareas de otros productores las sigue vaciando cada trabajador antes de terminar.
+ */
+class RingBufferTaskQueue implements TaskQueue, IdleWorkers.TaskFinder {
+
+    // Cuántas vueltas activas da un productor antes de ceder la CPU y, después, dormirse.
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 10;
+
+    private final AtomicReferenceArray<Runnable> buffer;
+    private final AtomicLongArray sequences;
+    private final int mask;
+
+    // Cada contador en su propia línea de caché: productores y consumidores no se estorban.
+    private final PaddedSequence enqueuePos = new PaddedSequence(0);
+    private final PaddedSequence dequeuePos = new PaddedSequence(0);
+
+    private final FullQueuePolicy fullQueuePolicy;
+    private final IdleWorkers idleWorkers;
+    // Productores dormidos esperando un hueco (solo con BLOCK y SPIN_THEN_PARK).
+    private final Queue<Thread> waitingProducers = new ConcurrentLinkedQueue<>();
+    private volatile boolean isShutdown = false;
+
+    /**
+     * @param poolSize El número de trabajadores que consumirán de la cola.
+     * @param capacity El número de huecos; debe ser potencia de dos para poder usar una máscara en vez de '%'.
+     * @param fullQueuePolicy Qué hacer cuando la cola está llena.
+     */
+    RingBufferTaskQueue(int poolSize, int capacity, FullQueuePolicy fullQueuePolicy) {
+        this(poolSize, capacity, fullQueuePolicy, IdleStrategy.PARK);
+    }
+
+    /**
+     * @param idleStrategy Qué hacen los trabajadores sin tarea antes de dormirse.
+     */
+    RingBufferTaskQueue(int poolSize, int capacity, FullQueuePolicy fullQueuePolicy, IdleStrategy idleStrategy) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("La capacidad debe ser una potencia de dos: " + capacity);
+        }
+        this.buffer = new AtomicReferenceArray<>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+        this.mask = capacity - 1;
+        this.fullQueuePolicy = fullQueuePolicy;
+        this.idleWorkers = new IdleWorkers(poolSize, idleStrategy);
+    }
+
+    @Override
+    public void put(Runnable task, int workerIndex) {
+        checkNotShutdown();
+        long pos = offer(task);
+        if (pos < 0) {
+            pos = handleFullQueue(task);
+        }
+
+        // Si el apagado llegó mientras publicábamos, puede que los trabajadores ya hayan terminado:
+        // recuperamos nuestra tarea y la rechazamos (si un trabajador ya la cogió, se ejecutará).
+        if (isShutdown && pos >= 0 && reclaim(pos, task)) {
+            checkNotShutdown();
+        }
+
+        idleWorkers.signalOne();
+    }
+
+    /**
+     * Como {@link #put(Runnable, int)}, pero sin aplicar la {@link FullQueuePolicy}: nunca espera
+     * ni ejecuta la tarea en el hilo que llama.
+     * @return false si la cola está llena o cerrada (la tarea no se ha encolado).
+     */
+    boolean tryPut(Runnable task, int workerIndex) {
+        if (isShutdown) {
+            return false;
+        }
+        long pos = offer(task);
+        if (pos < 0 || (isShutdown && reclaim(pos, task))) {
+            return false;
+        }
+        idleWorkers.signalOne();
+        return true;
+    }
+
+    /**
+     * Publica todo el lote y despierta como mucho a un trabajador por tarea. Los avisos se
+     * acumulan y se envían juntos, salvo si la cola se llena: entonces se envían antes de
+     * esperar, porque solo los trabajadores pueden liberar huecos.
+     */
+    @Override
+    public void putAll(Collection<? extends Runnable> tasks, int workerIndex) {
+        checkNotShutdown();
+        // Dónde quedó cada tarea del lote (-1 si la ejecutó el propio llamador), por si hay que
+        // recuperarlas en un apagado.
+        Runnable[] batch = tasks.toArray(new Runnable[0]);
+        long[] positions = new long[batch.length];
+        int pendingSignals = 0;
+        for (int i = 0; i < batch.length; i++) {
+            positions[i] = offer(batch[i]);
+            if (positions[i] < 0) {
+                idleWorkers.signal(pendingSignals);
+                pendingSignals = 0;
+                positions[i] = handleFullQueue(batch[i]);
+            }
+            pendingSignals++;
+        }
+
+        if (isShutdown) {
+            int reclaimed = 0;
+            for (int i = 0; i < batch.length; i++) {
+                if (positions[i] >= 0 && reclaim(positions[i], batch[i])) {
+                    reclaimed++;
+                }
+            }
+            if (reclaimed > 0) {
+                throw new ServiceClosedException("El servicio está apagado: " + reclaimed + " de " + batch.length
+                        + " tareas del lote no se ejecutarán.");
+            }
+        }
+
+        idleWorkers.signal(pendingSignals);
+    }
+
+    /**
+     * Aplica la {@link FullQueuePolicy} a una tarea que no cupo en la cola.
+     * @return La posición en la que quedó la tarea, o -1 si la ejecutó el llamador.
+     */
+    private long handleFullQueue(Runnable task) {
+        switch (fullQueuePolicy) {
+            case REJECT:
+                throw new TaskRejectedException("La cola está llena (" + buffer.length() + " tareas).");
+            case CALLER_RUNS:
+                task.run();
+                return -1L;
+            case SPIN_THEN_PARK:
+                long pos = spinOffer(task);
+                // Si después de insistir sigue llena, nos dormimos como en BLOCK.
+                return pos >= 0 ? pos : parkOffer(task);
+            case BLOCK:
+            default:
+                return parkOffer(task);
+        }
+    }
+
+    /**
+     * Intenta retirar de la cola la tarea que este productor publicó en 'pos'.
+     * @return true si la ha retirado (ningún trabajador la ejecutará); false si un trabajador ya la cogió.
+     */
+    private boolean reclaim(long pos, Runnable task) {
+        int index = (int) (pos & mask);
+        // Mientras la secuencia siga en pos + 1, ningún consumidor ha liberado la celda, así que
+        // contiene nuestra tarea o null (si un consumidor ya se la llevó).
+        return sequences.get(index) == pos + 1 && buffer.compareAndSet(index, task, null);
+    }
+
+    @Override
+    public Runnable take(int workerIndex) {
+        return poll(workerIndex, Long.MAX_VALUE);
+    }
+
+    @Override
+    public Runnable poll(int workerIndex, long timeoutNanos) {
+        // Long.MAX_VALUE significa "sin límite de tiempo".
+        boolean timed = timeoutNanos != Long.MAX_VALUE;
+        long deadline = timed ? System.nanoTime() + timeoutNanos : 0L;
+        while (true) {
+            boolean wasShutdown = isShutdown;
+            Runnable task = poll();
+            if (task != null) {
+                return task;
+            }
+            if (wasShutdown) {
+                // Un productor puede haber reservado una celda sin haberla publicado aún: esperamos.
+                if (enqueuePos.get() != dequeuePos.get()) {
+                    Thread.onSpinWait();
+                    continue;
+                }
+                return null;
+            }
+
+            long remaining = timed ? deadline - System.nanoTime() : Long.MAX_VALUE;
+            if (remaining <= 0) {
+                return null;
+            }
+
+            // Según la estrategia, se sigue buscando un rato antes de anunciar que nos dormimos.
+            task = idleWorkers.awaitTask(workerIndex, this);
+            if (task != null) {
+                return task;
+            }
+
+            idleWorkers.prepareToPark(workerIndex);
+            task = poll();
+            if (task != null || isShutdown) {
+                idleWorkers.cancelPark(workerIndex);
+                if (task != null) {
+                    return task;
+                }
+                continue;
+            }
+            if (timed) {
+                idleWorkers.parkNanos(workerIndex, remaining);
+            } else {
+                idleWorkers.park(workerIndex);
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        // Dos lecturas volátiles: es una foto aproximada, pero no necesita ningún lock.
+        return (int) Math.max(0, enqueuePos.get() - dequeuePos.get());
+    }
+
+    @Override
+    public int idleWorkerCount() {
+        return idleWorkers.idleCount();
+    }
+
+    @Override
+    public void close() {
+        isShutdown = true;
+        idleWorkers.signalAll();
+        for (Thread producer : waitingProducers) {
+            LockSupport.unpark(producer);
+        }
+    }
+
+    /**
+     * Intenta publicar la tarea sin esperar.
+     * @return La posición en la que ha quedado, o -1 si la cola está llena.
+     */
+    private long offer(Runnable task) {
+        long pos = enqueuePos.get();
+        while (true) {
+            int index = (int) (pos & mask);
+            long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                // La celda está libre en esta vuelta: intentamos reservarla.
+                if (enqueuePos.compareAndSet(pos, pos + 1)) {
+                    buffer.set(index, task);
+                    // La escritura volátil de la secuencia publica la tarea al consumidor.
+                    sequences.set(index, pos + 1);
+                    return pos;
+                }
+                pos = enqueuePos.get();
+            } else if (diff < 0) {
+                // La celda aún guarda una tarea de la vuelta anterior: la cola está llena.
+                return -1L;
+            } else {
+                // Otro productor se nos adelantó; releemos la posición.
+                pos = enqueuePos.get();
+            }
+        }
+    }
+
+    /**
+     * Intenta sacar una tarea sin esperar.
+     * @return La tarea, o null si la cola está vacía.
+     */
+    @Override
+    public Runnable findTask(int workerIndex) {
+        return poll();
+    }
+
+    private Runnable poll() {
+        long pos = dequeuePos.get();
+        while (true) {
+            int index = (int) (pos & mask);
+            long diff = sequences.get(index) - (pos + 1);
+            if (diff == 0) {
+                if (dequeuePos.compareAndSet(pos, pos + 1)) {
+                    Runnable task = buffer.getAndSet(index, null);
+                    // Cedemos la celda a los productores de la siguiente vuelta.
+                    sequences.set(index, pos + mask + 1);
+                    wakeProducer();
+                    if (task != null) {
+                        return task;
+                    }
+                    // Su productor la recuperó al ver el apagado: pasamos a la siguiente.
+                }
+                pos = dequeuePos.get();
+            } else if (diff < 0) {
+                return null;
+            } else {
+                pos = dequeuePos.get();
+            }
+        }
+    }
+
+    /**
+     * @return La posición en la que ha quedado la tarea, o -1 si la cola sigue llena.
+     */
+    private long spinOffer(Runnable task) {
+        for (int i = 0; i < SPIN_TRIES; i++) {
+            Thread.onSpinWait();
+            long pos = offer(task);
+            if (pos >= 0) {
+                return pos;
+            }
+        }
+        for (int i = 0; i < YIELD_TRIES; i++) {
+            Thread.yield();
+            long pos = offer(task);
+            if (pos >= 0) {
+                return pos;
+            }
+        }
+        return -1L;
+    }
+
+    /**
+     * Duerme al productor hasta que haya hueco. Sigue el mismo protocolo que {@link IdleWorkers}:
+     * primero se apunta en la lista de espera y solo después vuelve a intentarlo y se duerme.
+     * Si interrumpen al productor, deja de esperar: la tarea se rechaza y la bandera de
+     * interrupción se conserva (con ella puesta, park() volvería enseguida una y otra vez).
+     */
+    private long parkOffer(Runnable task) {
+        Thread current = Thread.currentThread();
+        while (true) {
+            waitingProducers.add(current);
+            long pos = offer(task);
+            if (pos >= 0) {
+                waitingProducers.remove(current);
+                return pos;
+            }
+            if (isShutdown) {
+                waitingProducers.remove(current);
+                checkNotShutdown();
+            }
+            LockSupport.park(this);
+            waitingProducers.remove(current);
+            checkNotShutdown();
+            if (current.isInterrupted()) {
+                throw new TaskRejectedException("Interrumpido mientras esperaba hueco en la cola.");
+            }
+            pos = offer(task);
+            if (pos >= 0) {
+                return pos;
+            }
+        }
+    }
+
+    private void wakeProducer() {
+        if (!waitingProducers.isEmpty()) {
+            Thread producer = waitingProducers.poll();
+            if (producer != null) {
+                LockSupport.unpark(producer);
+            }
+        }
+    }
+
+    private void checkNotShutdown() {
+        if (isShutdown) {
+            throw new ServiceClosedException("El servicio está apagado. No se aceptan nuevas tareas.");
+        }
+    }
+}
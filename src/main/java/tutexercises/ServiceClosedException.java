@@ -0,0 +1,13 @@
+package tutexercises;
+
+/**
+ * Excepción personalizada que se lanza cuando se intenta enviar una tarea a un
+ * MyExecutorService que ya ha sido apagado.
+ */
+class ServiceClosedException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public ServiceClosedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,73 @@
+package tutexercises;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Compara el coste, en el lado del productor, de enviar lotes de 1000 y 5000 tareas
+ * (las cargas de los Ejercicios 1 a 4) a MyExecutorService con la cola de un único lock:
+ * <ul>
+ *   <li>submit() en bucle: un synchronized y un notify() por tarea.</li>
+ *   <li>submitAll(): un único synchronized por lote y solo los notify() necesarios.</li>
+ * </ul>
+ * Se mide solo el tiempo que el productor pasa dentro de las llamadas de envío.
+ */
+public class SubmitAllBenchmark {
+
+    private static final int[] BATCH_SIZES = {1000, 5000};
+    private static final int POOL_SIZE = 8;
+    private static final int ROUNDS = 200;
+
+    public static void main(String[] args) throws InterruptedException {
+        // Pasada previa para que el JIT compile ambas rutas.
+        for (int batchSize : BATCH_SIZES) {
+            runTest(batchSize, false);
+            runTest(batchSize, true);
+        }
+
+        System.out.println("=================================================");
+        System.out.println(" # OF TASKS   submit() LOOP      submitAll()");
+        System.out.println("=================================================");
+        for (int batchSize : BATCH_SIZES) {
+            double loop = runTest(batchSize, false);
+            double batch = runTest(batchSize, true);
+            System.out.printf(" %-12d <%-9.1f us>     <%.1f us>%n", batchSize, loop, batch);
+        }
+        System.out.println("=================================================");
+        System.out.println("Average submit-side time per batch over " + ROUNDS + " rounds, " + POOL_SIZE + " threads");
+    }
+
+    /**
+     * Envía ROUNDS lotes y espera a que cada lote termine antes de enviar el siguiente,
+     * para que cada envío encuentre a los hilos dormidos como en los ejercicios.
+     * @return El tiempo medio de envío por lote, en microsegundos.
+     */
+    private static double runTest(int batchSize, boolean batched) throws InterruptedException {
+        MyExecutorService service = new MyExecutorService(POOL_SIZE);
+        long totalSubmitNanos = 0;
+
+        for (int round = 0; round < ROUNDS; round++) {
+            CountDownLatch done = new CountDownLatch(batchSize);
+            List<Runnable> tasks = new ArrayList<>(batchSize);
+            for (int i = 0; i < batchSize; i++) {
+                tasks.add(done::countDown);
+            }
+
+            long start = System.nanoTime();
+            if (batched) {
+                service.submitAll(tasks);
+            } else {
+                for (Runnable task : tasks) {
+                    service.submit(task);
+                }
+            }
+            totalSubmitNanos += System.nanoTime() - start;
+
+            done.await();
+        }
+
+        service.shutdown();
+        return totalSubmitNanos / 1000.0 / ROUNDS;
+    }
+}
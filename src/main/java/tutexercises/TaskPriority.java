@@ -0,0 +1,16 @@
+package tutexercises;
+
+/**
+ * Prioridad de una tarea enviada a un servicio creado con
+ * {@link MyExecutorService#newPriorityService(int, long, java.util.concurrent.TimeUnit)}.
+ * Cada prioridad tiene su propio carril (lane) en {@link PriorityTaskQueue}; el orden de
+ * declaración es el orden en que se atienden, de más a menos urgente.
+ */
+enum TaskPriority {
+    /** Peticiones interactivas con un objetivo de latencia: se atienden antes que nada. */
+    INTERACTIVE,
+    /** La prioridad por defecto de las tareas enviadas sin indicar ninguna. */
+    NORMAL,
+    /** Trabajo por lotes (como CalculationTaskC): se ejecuta cuando no hay nada más urgente. */
+    BATCH
+}
@@ -0,0 +1,58 @@
+package tutexercises;
+
+import java.util.Collection;
+
+/**
+ * Contrato interno entre MyExecutorService y la estructura que guarda sus tareas pendientes.
+ *
+ * Separar la cola del servicio permite cambiar la estrategia de encolado (un único lock,
+ * colas por trabajador con robo de tareas, etc.) sin tocar el ciclo de vida de los hilos.
+ * Cada implementación decide cómo bloquea a los trabajadores cuando no hay trabajo.
+ */
+interface TaskQueue {
+
+    /**
+     * Encola una tarea enviada con submit().
+     * @param task La tarea a encolar.
+     * @param workerIndex El índice del trabajador que envía la tarea, o -1 si la envía un hilo externo.
+     * @throws ServiceClosedException si la cola ya ha sido cerrada.
+     */
+    void put(Runnable task, int workerIndex);
+
+    /**
+     * Encola un lote de tareas de una vez y despierta solo a los trabajadores necesarios.
+     * @param tasks Las tareas a encolar.
+     * @param workerIndex El índice del trabajador que envía el lote, o -1 si lo envía un hilo externo.
+     * @throws ServiceClosedException si la cola ya ha sido cerrada.
+     */
+    void putAll(Collection<? extends Runnable> tasks, int workerIndex);
+
+    /**
+     * Bloquea al trabajador hasta que haya una tarea disponible.
+     * @param workerIndex El índice del trabajador que pide la tarea.
+     * @return La siguiente tarea, o null si la cola está cerrada y vacía (el trabajador debe terminar).
+     */
+    Runnable take(int workerIndex);
+
+    /**
+     * Como {@link #take(int)}, pero espera como mucho 'timeoutNanos'.
+     * @return La siguiente tarea, o null si se agotó el tiempo o si la cola está cerrada y vacía.
+     */
+    Runnable poll(int workerIndex, long timeoutNanos);
+
+    /**
+     * @return El número (aproximado) de tareas esperando en la cola.
+     */
+    int size();
+
+    /**
+     * @return El número de trabajadores dormidos esperando una tarea. Se lee sin bloquear.
+     */
+    int idleWorkerCount();
+
+    /**
+     * Cierra la cola: no se aceptan más tareas y se despierta a los trabajadores en espera
+     * para que terminen en cuanto se vacíe.
+     */
+    void close();
+}
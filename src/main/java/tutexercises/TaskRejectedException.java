@@ -0,0 +1,13 @@
+package tutexercises;
+
+/**
+ * Excepción que se lanza cuando una cola acotada de MyExecutorService está llena y
+ * su política es rechazar la tarea (ver {@link FullQueuePolicy#REJECT}).
+ */
+class TaskRejectedException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public TaskRejectedException(String message) {
+        super(message);
+    }
+}
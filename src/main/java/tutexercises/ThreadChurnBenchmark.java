@@ -0,0 +1,70 @@
+package tutexercises;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import tuts.common.InstrumentedThreadFactory;
+import tuts.common.NamedBuilderThreadsFactory;
+
+/**
+ * Usa {@link InstrumentedThreadFactory} para elegir el keep-alive de un pool "cached" bajo
+ * una carga en dientes de sierra: ráfagas de tareas cortas separadas por pausas.
+ *
+ * Con un keep-alive más corto que la pausa, el pool destruye sus hilos en cada pausa y los
+ * vuelve a crear en la siguiente ráfaga: muchos hilos creados y vidas cortas. Con uno más
+ * largo, los mismos hilos sirven todas las ráfagas.
+ */
+public class ThreadChurnBenchmark {
+
+    private static final int BURSTS = 10;
+    private static final int TASKS_PER_BURST = 50;
+    private static final long TASK_MILLIS = 20;
+    private static final long PAUSE_MILLIS = 200;
+    private static final long[] KEEP_ALIVE_MILLIS = {10, 100, 1000};
+
+    public static void main(String[] args) throws InterruptedException {
+        System.out.println("=====================================================================================");
+        System.out.println(" KEEP-ALIVE   CREATED   CREATED/S   PEAK LIVE   NORMAL EXITS   AVG LIFETIME");
+        System.out.println("=====================================================================================");
+        for (long keepAlive : KEEP_ALIVE_MILLIS) {
+            System.out.println(runTest(keepAlive));
+        }
+        System.out.println("=====================================================================================");
+        System.out.println(BURSTS + " bursts of " + TASKS_PER_BURST + " x " + TASK_MILLIS + " ms tasks, "
+                + PAUSE_MILLIS + " ms apart; the same pool as Executors.newCachedThreadPool()");
+    }
+
+    private static String runTest(long keepAliveMillis) throws InterruptedException {
+        InstrumentedThreadFactory factory = new InstrumentedThreadFactory(NamedBuilderThreadsFactory.ofPlatform("PoolWorker-"));
+        // La misma configuración que Executors.newCachedThreadPool(), pero con el keep-alive a elegir.
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(0, Integer.MAX_VALUE,
+                keepAliveMillis, TimeUnit.MILLISECONDS, new SynchronousQueue<>(), factory);
+
+        InstrumentedThreadFactory.Snapshot start = factory.snapshot();
+        for (int burst = 0; burst < BURSTS; burst++) {
+            CountDownLatch done = new CountDownLatch(TASKS_PER_BURST);
+            for (int i = 0; i < TASKS_PER_BURST; i++) {
+                pool.execute(() -> {
+                    try {
+                        TimeUnit.MILLISECONDS.sleep(TASK_MILLIS);
+                    } catch (InterruptedException e) {
+                        e.printStackTrace();
+                    }
+                    done.countDown();
+                });
+            }
+            done.await();
+            TimeUnit.MILLISECONDS.sleep(PAUSE_MILLIS);
+        }
+        InstrumentedThreadFactory.Snapshot end = factory.snapshot();
+
+        pool.shutdown();
+        pool.awaitTermination(1, TimeUnit.MINUTES);
+
+        return String.format(" %-12s %-9d %-11.1f %-11d %-14d %s",
+                keepAliveMillis + " ms", end.created, end.creationRatePerSecond(start), end.peakLive,
+                end.normalExits, end.averageLifetimeMillis + " ms");
+    }
+}
@@ -0,0 +1,104 @@
+package tutexercises;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+
+import tuts.common.NamedBuilderThreadsFactory;
+import tuts.common.NamedThreadsFactory;
+
+/**
+ * Compara la fábrica original {@link NamedThreadsFactory} con {@link NamedBuilderThreadsFactory}:
+ * <ul>
+ *   <li><b>NEW THREAD/S:</b> hilos creados por segundo (solo newThread(), sin arrancarlos)
+ *       desde CREATORS hilos a la vez, como en un newCachedThreadPool con mucha carga.</li>
+ *   <li><b>DUPLICATES:</b> nombres repetidos en esa misma pasada concurrente.</li>
+ *   <li><b>START+JOIN/S:</b> hilos creados, arrancados y terminados por segundo desde un solo hilo.</li>
+ * </ul>
+ * Los mensajes por consola se redirigen a un fichero temporal: se sigue pagando la escritura
+ * de cada línea, pero sin inundar la pantalla.
+ */
+public class ThreadFactoryBenchmark {
+
+    private static final int CREATORS = 4;
+    private static final int THREADS_PER_CREATOR = 100_000;
+    private static final int STARTED_THREADS = 20_000;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        PrintStream console = System.out;
+        File log = File.createTempFile("thread-factory-benchmark", ".log");
+        log.deleteOnExit();
+
+        try (PrintStream logStream = new PrintStream(new FileOutputStream(log), true)) {
+            System.setOut(logStream);
+            // Pasada previa para que el JIT compile todas las rutas.
+            runTest(new NamedThreadsFactory());
+            runTest(NamedBuilderThreadsFactory.ofPlatform("Platform-"));
+
+            String[] rows = {
+                    row("NamedThreadsFactory", runTest(new NamedThreadsFactory())),
+                    row("Builder PLATFORM (log)", runTest(NamedBuilderThreadsFactory.ofPlatform("Platform-", 0, false, null, true))),
+                    row("Builder PLATFORM", runTest(NamedBuilderThreadsFactory.ofPlatform("Platform-"))),
+                    row("Builder VIRTUAL", runTest(NamedBuilderThreadsFactory.ofVirtual("Virtual-"))),
+            };
+            System.setOut(console);
+
+            System.out.println("=====================================================================");
+            System.out.println(" FACTORY                    NEW THREAD/S   DUPLICATES   START+JOIN/S");
+            System.out.println("=====================================================================");
+            for (String row : rows) {
+                System.out.println(row);
+            }
+            System.out.println("=====================================================================");
+            System.out.println(CREATORS + " creators x " + THREADS_PER_CREATOR + " newThread() calls; "
+                    + STARTED_THREADS + " threads started and joined");
+        } finally {
+            System.setOut(console);
+        }
+    }
+
+    private static String row(String name, long[] result) {
+        return String.format(" %-26s %-14d %-12d %d", name, result[0], result[1], result[2]);
+    }
+
+    /**
+     * @return {newThread() por segundo, nombres duplicados, hilos arrancados y terminados por segundo}.
+     */
+    private static long[] runTest(ThreadFactory factory) throws InterruptedException {
+        Set<String> names = ConcurrentHashMap.newKeySet();
+        Runnable noop = () -> { };
+
+        Thread[] creators = new Thread[CREATORS];
+        for (int c = 0; c < CREATORS; c++) {
+            creators[c] = new Thread(() -> {
+                for (int i = 0; i < THREADS_PER_CREATOR; i++) {
+                    names.add(factory.newThread(noop).getName());
+                }
+            });
+        }
+        long start = System.nanoTime();
+        for (Thread creator : creators) {
+            creator.start();
+        }
+        for (Thread creator : creators) {
+            creator.join();
+        }
+        long created = (long) CREATORS * THREADS_PER_CREATOR;
+        long createdPerSecond = (long) (created / ((System.nanoTime() - start) / 1e9));
+        long duplicates = created - names.size();
+
+        start = System.nanoTime();
+        for (int i = 0; i < STARTED_THREADS; i++) {
+            Thread t = factory.newThread(noop);
+            t.start();
+            t.join();
+        }
+        long startedPerSecond = (long) (STARTED_THREADS / ((System.nanoTime() - start) / 1e9));
+
+        return new long[]{createdPerSecond, duplicates, startedPerSecond};
+    }
+}
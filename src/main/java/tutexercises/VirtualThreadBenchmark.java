@@ -0,0 +1,110 @@
+package tutexercises;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara MyExecutorService con hilos de plataforma frente al modo de hilos virtuales
+ * ejecutando 100.000 tareas que, como LoopTaskA, pasan casi todo su tiempo durmiendo.
+ *
+ * Cada modo se ejecuta en una JVM hija distinta para que el pico de memoria residente (RSS)
+ * de uno no contamine la medida del otro. El RSS se lee de /proc/self/status, así que esa
+ * columna solo está disponible en Linux.
+ */
+public class VirtualThreadBenchmark {
+
+    private static final int TASKS = 100_000;
+    private static final int PLATFORM_POOL_SIZE = 1000;
+    private static final int TICKS = 10;
+    private static final long TICK_MILLIS = 10;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length == 1) {
+            // Estamos en la JVM hija: ejecutamos un único modo e imprimimos su fila.
+            runTest("virtual".equals(args[0]));
+            return;
+        }
+
+        System.out.println("==================================================");
+        System.out.println(" MODE                      WALL TIME     PEAK RSS");
+        System.out.println("==================================================");
+        runInChildJvm("platform");
+        runInChildJvm("virtual");
+        System.out.println("==================================================");
+        System.out.println(TASKS + " tasks x " + TICKS + " ticks of " + TICK_MILLIS + " ms");
+    }
+
+    private static void runInChildJvm(String mode) throws IOException, InterruptedException {
+        String java = ProcessHandle.current().info().command().orElse("java");
+        Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                VirtualThreadBenchmark.class.getName(), mode)
+                .inheritIO()
+                .start();
+        process.waitFor();
+    }
+
+    private static void runTest(boolean virtual) throws InterruptedException, IOException {
+        MyExecutorService service = virtual
+                ? MyExecutorService.newVirtualThreadService()
+                : new MyExecutorService(PLATFORM_POOL_SIZE);
+
+        CountDownLatch done = new CountDownLatch(TASKS);
+        long startTime = System.nanoTime();
+        for (int i = 0; i < TASKS; i++) {
+            service.submit(new SleepingLoopTask(done));
+        }
+        done.await();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        service.shutdown();
+
+        System.out.printf(" %-25s %-13s %s%n",
+                virtual ? "VIRTUAL THREADS" : "PLATFORM (" + PLATFORM_POOL_SIZE + " threads)",
+                (elapsedMillis / 1000.0) + " s",
+                readPeakRss());
+    }
+
+    /**
+     * Lee el pico de memoria residente del proceso (VmHWM) en Linux.
+     */
+    private static String readPeakRss() throws IOException {
+        Path status = Path.of("/proc/self/status");
+        if (!Files.exists(status)) {
+            return "n/a";
+        }
+        List<String> lines = Files.readAllLines(status);
+        for (String line : lines) {
+            if (line.startsWith("VmHWM:")) {
+                return line.substring("VmHWM:".length()).trim();
+            }
+        }
+        return "n/a";
+    }
+
+    /**
+     * Una versión silenciosa de LoopTaskA: cuenta hacia atrás durmiendo en cada paso,
+     * sin imprimir nada para que la consola no domine la medida.
+     */
+    private static class SleepingLoopTask implements Runnable {
+        private final CountDownLatch done;
+
+        SleepingLoopTask(CountDownLatch done) {
+            this.done = done;
+        }
+
+        @Override
+        public void run() {
+            for (int i = TICKS; i > 0; i--) {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(TICK_MILLIS);
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
+            }
+            done.countDown();
+        }
+    }
+}
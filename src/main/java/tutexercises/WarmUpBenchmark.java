@@ -0,0 +1,93 @@
+package tutexercises;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import tuts.common.CalculationTaskC;
+
+/**
+ * Latencia de las primeras peticiones a un pool recién creado (frío) frente a un pool
+ * calentado con {@link PoolWarmUp}, usando CalculationTaskC como petición.
+ *
+ * El JIT guarda su estado por JVM, así que cada modo se ejecuta en una JVM hija nueva; si
+ * no, el segundo modo se beneficiaría del calentamiento del primero. Las peticiones se
+ * envían de una en una y se mide desde el submit() hasta tener el resultado.
+ */
+public class WarmUpBenchmark {
+
+    private static final int POOL_SIZE = 4;
+    private static final int FIRST_REQUESTS = 20;
+    private static final int MAX_WARM_UP_ROUNDS = 50;
+    // Lo más caliente de CalculationTaskC: Random.nextInt y las comparaciones de la ordenación,
+    // unas 100.000 veces por lista, con 20 listas por ronda.
+    private static final long HOT_CALLS_PER_ROUND = 20 * 100_000L;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 1) {
+            // Estamos en la JVM hija: ejecutamos un único modo e imprimimos su fila.
+            runTest("warm".equals(args[0]));
+            return;
+        }
+
+        System.out.println("===========================================================================");
+        System.out.println(" POOL      1st REQUEST   p50 FIRST " + FIRST_REQUESTS + "   MAX FIRST " + FIRST_REQUESTS + "   WARM-UP");
+        System.out.println("===========================================================================");
+        runInChildJvm("cold");
+        runInChildJvm("warm");
+        System.out.println("===========================================================================");
+        System.out.println("CalculationTaskC requests sent one at a time to a pool of " + POOL_SIZE + " threads");
+    }
+
+    private static void runInChildJvm(String mode) throws IOException, InterruptedException {
+        String java = ProcessHandle.current().info().command().orElse("java");
+        Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                WarmUpBenchmark.class.getName(), mode)
+                .inheritIO()
+                .start();
+        process.waitFor();
+    }
+
+    private static void runTest(boolean warm) throws InterruptedException, ExecutionException {
+        // CalculationTaskC imprime cada paso: lo descartamos para medir solo el cálculo.
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        ThreadPoolExecutor pool = (ThreadPoolExecutor) Executors.newFixedThreadPool(POOL_SIZE);
+        String warmUpColumn = "none";
+        if (warm) {
+            PoolWarmUp warmUp = PoolWarmUp.start(pool, () -> {
+                try {
+                    new CalculationTaskC().call();
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }, HOT_CALLS_PER_ROUND, MAX_WARM_UP_ROUNDS);
+            warmUp.awaitHot(10, TimeUnit.MINUTES);
+            warmUpColumn = warmUp.warmUpMillis() + " ms, " + warmUp.roundsRun() + " rounds";
+        }
+
+        long[] latencies = new long[FIRST_REQUESTS];
+        for (int i = 0; i < FIRST_REQUESTS; i++) {
+            long start = System.nanoTime();
+            pool.submit(new CalculationTaskC()).get();
+            latencies[i] = System.nanoTime() - start;
+        }
+        pool.shutdown();
+
+        long first = latencies[0];
+        Arrays.sort(latencies);
+        System.setOut(console);
+        System.out.printf(" %-9s %-13s %-15s %-15s %s%n",
+                warm ? "WARM" : "COLD",
+                TimeUnit.NANOSECONDS.toMillis(first) + " ms",
+                TimeUnit.NANOSECONDS.toMillis(latencies[FIRST_REQUESTS / 2]) + " ms",
+                TimeUnit.NANOSECONDS.toMillis(latencies[FIRST_REQUESTS - 1]) + " ms",
+                warmUpColumn);
+    }
+}
@@ -0,0 +1,83 @@
+package tutexercises;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compara el rendimiento (tareas por segundo) de MyExecutorService con la cola original
+ * de un único lock frente a la cola con robo de tareas, para 1, 4, 16 y 64 hilos.
+ *
+ * Varios hilos productores envían a la vez muchas tareas muy cortas, que es justo el
+ * escenario en el que el synchronized de la cola única se convierte en el cuello de botella.
+ */
+public class WorkStealingBenchmark {
+
+    private static final int[] POOL_SIZES = {1, 4, 16, 64};
+    private static final int PRODUCERS = 4;
+    private static final int TASKS = 400_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        // Una pasada previa para que el JIT compile las rutas calientes antes de medir.
+        runTest(4, false);
+        runTest(4, true);
+
+        System.out.println("====================================================");
+        System.out.println(" # OF THREADS   SINGLE-LOCK        WORK-STEALING");
+        System.out.println("====================================================");
+
+        for (int poolSize : POOL_SIZES) {
+            double singleLock = runTest(poolSize, false);
+            double workStealing = runTest(poolSize, true);
+            System.out.printf("%-14d <%,.0f tasks/s>  <%,.0f tasks/s>%n", poolSize, singleLock, workStealing);
+        }
+
+        System.out.println("====================================================");
+        System.out.println("# of cores : " + Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Ejecuta TASKS tareas repartidas entre PRODUCERS hilos productores.
+     * @return El rendimiento medido en tareas por segundo.
+     */
+    private static double runTest(int poolSize, boolean workStealing) throws InterruptedException {
+        MyExecutorService service = workStealing
+                ? MyExecutorService.newWorkStealingService(poolSize)
+                : new MyExecutorService(poolSize);
+
+        // LongAdder en lugar de un CountDownLatch: un contador compartido añadiría su propia contención.
+        LongAdder completed = new LongAdder();
+        Runnable task = () -> {
+            // Un trabajo mínimo para que domine el coste de encolar y desencolar.
+            int x = ThreadLocalRandom.current().nextInt();
+            for (int i = 0; i < 50; i++) {
+                x = x * 31 + i;
+            }
+            if (x == 42) {
+                System.out.print("");
+            }
+            completed.increment();
+        };
+
+        Thread[] producers = new Thread[PRODUCERS];
+        long startTime = System.nanoTime();
+        for (int p = 0; p < PRODUCERS; p++) {
+            producers[p] = new Thread(() -> {
+                for (int i = 0; i < TASKS / PRODUCERS; i++) {
+                    service.submit(task);
+                }
+            });
+            producers[p].start();
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        while (completed.sum() < TASKS) {
+            TimeUnit.MICROSECONDS.sleep(100);
+        }
+        long elapsed = System.nanoTime() - startTime;
+
+        service.shutdown();
+        return TASKS / (elapsed / 1_000_000_000.0);
+    }
+}
@@ -0,0 +1,199 @@
+package tutexercises;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Cola con "robo de tareas" (work-stealing): una deque sin locks por cada trabajador.
+ *
+ * <ul>
+ *   <li>Cada trabajador mete y saca tareas por el FINAL de su propia deque (orden LIFO),
+ *       así que en el caso normal no compite con nadie.</li>
+ *   <li>Cuando su deque está vacía, roba por el PRINCIPIO de la deque de otro trabajador,
+ *       empezando por una víctima aleatoria.</li>
+ *   <li>Las tareas enviadas desde hilos externos se reparten al azar entre las deques, sin
+ *       ningún contador compartido que se convierta en un nuevo punto de contención.</li>
+ * </ul>
+ *
+ * A cambio se pierde el orden FIFO global que ofrece {@link MonitorTaskQueue}.
+ */
+class WorkStealingTaskQueue implements TaskQueue, IdleWorkers.TaskFinder {
+
+    private final ConcurrentLinkedDeque<Runnable>[] deques;
+    private final IdleWorkers idleWorkers;
+    private volatile boolean isShutdown = false;
+
+    WorkStealingTaskQueue(int poolSize) {
+        this(poolSize, IdleStrategy.PARK);
+    }
+
+    WorkStealingTaskQueue(int poolSize, IdleStrategy idleStrategy) {
+        // Java no permite crear arrays de un tipo genérico: se crea sin tipo y se convierte.
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        ConcurrentLinkedDeque<Runnable>[] created = new ConcurrentLinkedDeque[poolSize];
+        this.deques = created;
+        for (int i = 0; i < poolSize; i++) {
+            deques[i] = new ConcurrentLinkedDeque<>();
+        }
+        this.idleWorkers = new IdleWorkers(poolSize, idleStrategy);
+    }
+
+    @Override
+    public void put(Runnable task, int workerIndex) {
+        if (isShutdown) {
+            throw new ServiceClosedException("El servicio está apagado. No se aceptan nuevas tareas.");
+        }
+
+        // Un trabajador encola en su propia deque; un hilo externo, en una al azar.
+        ConcurrentLinkedDeque<Runnable> deque = workerIndex >= 0
+                ? deques[workerIndex]
+                : deques[ThreadLocalRandom.current().nextInt(deques.length)];
+        deque.offerLast(task);
+
+        // Si el apagado ocurrió mientras encolábamos, puede que ya no quede nadie para ejecutarla.
+        // Si conseguimos retirarla, la rechazamos; si no, es que un trabajador ya la cogió.
+        if (isShutdown && deque.removeLastOccurrence(task)) {
+            throw new ServiceClosedException("El servicio está apagado. No se aceptan nuevas tareas.");
+        }
+
+        idleWorkers.signalOne();
+    }
+
+    /**
+     * Un trabajador deja el lote en su propia deque (los demás se lo robarán si están libres);
+     * un hilo externo lo reparte en turno rotatorio empezando por una deque al azar.
+     * Si el apagado llega a mitad, se retiran las tareas que nadie ha cogido y se rechaza el lote.
+     */
+    @Override
+    public void putAll(Collection<? extends Runnable> tasks, int workerIndex) {
+        if (isShutdown) {
+            throw new ServiceClosedException("El servicio está apagado. No se aceptan nuevas tareas.");
+        }
+
+        int n = deques.length;
+        int first = workerIndex >= 0 ? workerIndex : ThreadLocalRandom.current().nextInt(n);
+        int next = first;
+        for (Runnable task : tasks) {
+            deques[next].offerLast(task);
+            if (workerIndex < 0) {
+                next = (next + 1) % n;
+            }
+        }
+
+        if (isShutdown) {
+            // Se recorre el lote en el mismo orden para saber en qué deque quedó cada tarea.
+            boolean retracted = false;
+            next = first;
+            for (Runnable task : tasks) {
+                retracted |= deques[next].removeLastOccurrence(task);
+                if (workerIndex < 0) {
+                    next = (next + 1) % n;
+                }
+            }
+            if (retracted) {
+                throw new ServiceClosedException("El servicio está apagado. No se aceptan nuevas tareas.");
+            }
+        }
+
+        idleWorkers.signal(tasks.size());
+    }
+
+    @Override
+    public Runnable take(int workerIndex) {
+        return poll(workerIndex, Long.MAX_VALUE);
+    }
+
+    @Override
+    public Runnable poll(int workerIndex, long timeoutNanos) {
+        // Long.MAX_VALUE significa "sin límite de tiempo".
+        boolean timed = timeoutNanos != Long.MAX_VALUE;
+        long deadline = timed ? System.nanoTime() + timeoutNanos : 0L;
+        while (true) {
+            // Se lee el estado ANTES de buscar: si ya estaba apagado y no hay tareas,
+            // ningún submit() posterior podrá dejar una tarea huérfana.
+            boolean wasShutdown = isShutdown;
+            Runnable task = findTask(workerIndex);
+            if (task != null) {
+                return task;
+            }
+            if (wasShutdown) {
+                return null;
+            }
+
+            long remaining = timed ? deadline - System.nanoTime() : Long.MAX_VALUE;
+            if (remaining <= 0) {
+                return null;
+            }
+
+            // Según la estrategia, se sigue buscando un rato antes de anunciar que nos dormimos.
+            task = idleWorkers.awaitTask(workerIndex, this);
+            if (task != null) {
+                return task;
+            }
+
+            idleWorkers.prepareToPark(workerIndex);
+            task = findTask(workerIndex);
+            if (task != null || isShutdown) {
+                idleWorkers.cancelPark(workerIndex);
+                if (task != null) {
+                    return task;
+                }
+                continue;
+            }
+            if (timed) {
+                idleWorkers.parkNanos(workerIndex, remaining);
+            } else {
+                idleWorkers.park(workerIndex);
+            }
+        }
+    }
+
+    /**
+     * Suma el tamaño de todas las deques. Es aproximado y recorre cada deque, así que no
+     * conviene llamarlo en cada submit().
+     */
+    @Override
+    public int size() {
+        int size = 0;
+        for (ConcurrentLinkedDeque<Runnable> deque : deques) {
+            size += deque.size();
+        }
+        return size;
+    }
+
+    @Override
+    public int idleWorkerCount() {
+        return idleWorkers.idleCount();
+    }
+
+    @Override
+    public void close() {
+        isShutdown = true;
+        idleWorkers.signalAll();
+    }
+
+    /**
+     * Primero la deque propia (LIFO) y, si está vacía, un intento de robo en cada una de las demás.
+     */
+    @Override
+    public Runnable findTask(int workerIndex) {
+        Runnable task = deques[workerIndex].pollLast();
+        if (task != null) {
+            return task;
+        }
+
+        int n = deques.length;
+        int start = ThreadLocalRandom.current().nextInt(n);
+        for (int i = 0; i < n; i++) {
+            int victim = (start + i) % n;
+            if (victim != workerIndex) {
+                task = deques[victim].pollFirst();
+                if (task != null) {
+                    return task;
+                }
+            }
+        }
+        return null;
+    }
+}
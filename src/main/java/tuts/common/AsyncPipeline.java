@@ -0,0 +1,175 @@
+package tuts.common;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Compone resultados de tareas (como `CalculationTaskA`) sin bloquear ningún hilo mientras
+ * se calculan: cada paso se ejecuta cuando llegan sus datos, y el hilo principal solo espera
+ * una vez, al final.
+ *
+ * <h2>¿Qué problema resuelve?</h2>
+ * En `ReturningValuesUsingExecutors_FirstTechnique` el hilo principal llama a `future.get()`
+ * tarea por tarea, en el orden en que las envió. Si la primera es la más lenta, espera por ella
+ * aunque las demás ya hayan terminado, y no puede lanzar el siguiente paso de ninguna hasta
+ * entonces. Con varias etapas (calcular, transformar, sumar), las esperas se van acumulando.
+ *
+ * <h2>¿Cómo funciona?</h2>
+ * Todo se construye sobre `CompletableFuture`, que permite decir "cuando termine esto, haz
+ * aquello" en lugar de esperar:
+ * <ul>
+ *   <li>{@link #supply(Callable)}: lanza una tarea (cualquier `Callable`, como
+ *       `new CalculationTaskA(2, 3, 500)`).</li>
+ *   <li>{@link #map(CompletableFuture, Function)}: transforma el resultado cuando llegue.</li>
+ *   <li>{@link #combine(CompletableFuture, CompletableFuture, BiFunction)}: junta dos resultados
+ *       cuando lleguen los dos.</li>
+ *   <li>{@link #allOf(List, Object, BiFunction)}: reduce (suma, concatena...) los resultados de
+ *       muchas tareas cuando lleguen todos.</li>
+ *   <li>{@link #anyOf(List)}: una "carrera": se queda con el primer resultado correcto.</li>
+ * </ul>
+ * Cada método tiene una versión que recibe el `Executor` en el que ejecutar ese paso: por
+ * ejemplo, un pool grande para tareas que esperan (E/S, sleep) y otro pequeño para cálculos.
+ * Sin él, se usa el `Executor` del constructor.
+ */
+public class AsyncPipeline {
+
+	private final Executor defaultExecutor;
+
+	/**
+	 * @param defaultExecutor El `Executor` de los pasos a los que no se les indica otro.
+	 */
+	public AsyncPipeline(Executor defaultExecutor) {
+		this.defaultExecutor = defaultExecutor;
+	}
+
+	public <T> CompletableFuture<T> supply(Callable<T> task) {
+		return supply(task, defaultExecutor);
+	}
+
+	/**
+	 * Lanza 'task' en 'executor'. Si `call()` lanza una excepción, el resultado termina con ella.
+	 */
+	public <T> CompletableFuture<T> supply(Callable<T> task, Executor executor) {
+		CompletableFuture<T> result = new CompletableFuture<>();
+		executor.execute(() -> {
+			try {
+				result.complete(task.call());
+			} catch (Throwable t) {
+				result.completeExceptionally(t);
+			}
+		});
+		return result;
+	}
+
+	public <T, R> CompletableFuture<R> map(CompletableFuture<T> stage, Function<? super T, ? extends R> fn) {
+		return map(stage, fn, defaultExecutor);
+	}
+
+	/**
+	 * @return El resultado de aplicar 'fn' (en 'executor') al de 'stage', cuando llegue. Si 'stage'
+	 *         falla, 'fn' no se ejecuta y el resultado falla igual.
+	 */
+	public <T, R> CompletableFuture<R> map(CompletableFuture<T> stage, Function<? super T, ? extends R> fn,
+			Executor executor) {
+		return stage.thenApplyAsync(fn, executor);
+	}
+
+	public <T, U, R> CompletableFuture<R> combine(CompletableFuture<T> first, CompletableFuture<U> second,
+			BiFunction<? super T, ? super U, ? extends R> fn) {
+		return combine(first, second, fn, defaultExecutor);
+	}
+
+	/**
+	 * @return El resultado de aplicar 'fn' (en 'executor') a los de 'first' y 'second', cuando
+	 *         lleguen los dos.
+	 */
+	public <T, U, R> CompletableFuture<R> combine(CompletableFuture<T> first, CompletableFuture<U> second,
+			BiFunction<? super T, ? super U, ? extends R> fn, Executor executor) {
+		return first.thenCombineAsync(second, fn, executor);
+	}
+
+	public <T, R> CompletableFuture<R> allOf(List<? extends CompletableFuture<? extends T>> stages, R identity,
+			BiFunction<R, ? super T, R> accumulator) {
+		return allOf(stages, identity, accumulator, defaultExecutor);
+	}
+
+	/**
+	 * Reduce los resultados de todas las etapas, en el orden de la lista, cuando hayan terminado
+	 * todas. Por ejemplo, para sumarlas: {@code allOf(stages, 0, Integer::sum)}.
+	 *
+	 * @return La reducción. Si alguna etapa falla, el resultado falla con su excepción.
+	 */
+	public <T, R> CompletableFuture<R> allOf(List<? extends CompletableFuture<? extends T>> stages, R identity,
+			BiFunction<R, ? super T, R> accumulator, Executor executor) {
+		CompletableFuture<?>[] all = stages.toArray(new CompletableFuture<?>[0]);
+		return CompletableFuture.allOf(all).thenApplyAsync(ignored -> {
+			R result = identity;
+			for (CompletableFuture<? extends T> stage : stages) {
+				// Ya han terminado todas: join() no espera.
+				result = accumulator.apply(result, stage.join());
+			}
+			return result;
+		}, executor);
+	}
+
+	public <T> CompletableFuture<T> anyOf(List<? extends CompletableFuture<? extends T>> stages) {
+		return anyOf(stages, defaultExecutor);
+	}
+
+	/**
+	 * Una "carrera" entre varias etapas: el resultado es el de la primera que termine BIEN.
+	 * A diferencia de `CompletableFuture.anyOf`, una etapa que falla no gana la carrera: solo
+	 * si fallan todas, el resultado falla (con la excepción de la última, y las demás añadidas
+	 * como "suprimidas").
+	 * <p>
+	 * El resultado se entrega en 'executor', así que los pasos que dependan de él no se ejecutan
+	 * en el hilo de la etapa ganadora. Las perdedoras no se cancelan: sus tareas terminan igualmente.
+	 */
+	public <T> CompletableFuture<T> anyOf(List<? extends CompletableFuture<? extends T>> stages, Executor executor) {
+		CompletableFuture<T> winner = new CompletableFuture<>();
+		if (stages.isEmpty()) {
+			winner.completeExceptionally(new IllegalArgumentException("No hay etapas en la carrera"));
+			return winner;
+		}
+		AtomicInteger remaining = new AtomicInteger(stages.size());
+		List<Throwable> failures = new ArrayList<>();
+		for (CompletableFuture<? extends T> stage : stages) {
+			stage.whenComplete((value, failure) -> {
+				if (failure == null) {
+					winner.complete(value);
+					return;
+				}
+				synchronized (failures) {
+					failures.add(unwrap(failure));
+				}
+				if (remaining.decrementAndGet() == 0) {
+					// Han fallado todas: el decremento que llega a 0 ve todos los fallos ya añadidos.
+					synchronized (failures) {
+						Throwable last = failures.get(failures.size() - 1);
+						for (Throwable other : failures) {
+							if (other != last) {
+								last.addSuppressed(other);
+							}
+						}
+						winner.completeExceptionally(last);
+					}
+				}
+			});
+		}
+		return winner.thenApplyAsync(Function.identity(), executor);
+	}
+
+	/**
+	 * Los pasos dependientes reciben la excepción envuelta en una `CompletionException`.
+	 */
+	private static Throwable unwrap(Throwable failure) {
+		return failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+	}
+}
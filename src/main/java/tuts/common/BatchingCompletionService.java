@@ -0,0 +1,191 @@
+package tuts.common;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Un `CompletionService` (como el `ExecutorCompletionService` del tut3) que además permite
+ * recoger muchos resultados de una vez, con {@link #drainTo(Collection, int)} y
+ * {@link #takeBatch(int, long, TimeUnit)}.
+ *
+ * <h2>¿Qué problema resuelve?</h2>
+ * Con `ExecutorCompletionService`, cada `take()` es una operación sobre una
+ * `LinkedBlockingQueue`: coger su lock y, si la cola está vacía, dormir y esperar a que
+ * otro hilo nos despierte. Un consumidor que procesa decenas de miles de resultados por
+ * segundo paga eso en cada resultado.
+ *
+ * <h2>¿Cómo funciona?</h2>
+ * <ul>
+ *   <li>Las tareas terminadas se dejan en una `ConcurrentLinkedQueue`, que no usa locks.</li>
+ *   <li>{@link #drainTo(Collection, int)} coge todo lo que haya (hasta 'max') sin bloquearse.</li>
+ *   <li>Solo cuando un consumidor tiene que esperar se usa un lock y un `Condition`. Los hilos
+ *       del pool solo lo tocan si hay alguien esperando (el contador 'waiters'), así que,
+ *       mientras el consumidor va recogiendo lotes, terminar una tarea no toca ningún lock.</li>
+ * </ul>
+ *
+ * @param <V> El tipo del resultado de las tareas.
+ */
+public class BatchingCompletionService<V> implements CompletionService<V> {
+
+	private final Executor executor;
+	private final ConcurrentLinkedQueue<Future<V>> completed = new ConcurrentLinkedQueue<>();
+
+	// Solo para los consumidores que se quedan esperando.
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition notEmpty = lock.newCondition();
+	private final AtomicInteger waiters = new AtomicInteger();
+
+	public BatchingCompletionService(Executor executor) {
+		this.executor = executor;
+	}
+
+	@Override
+	public Future<V> submit(Callable<V> task) {
+		QueueingFuture future = new QueueingFuture(task);
+		executor.execute(future);
+		return future;
+	}
+
+	@Override
+	public Future<V> submit(Runnable task, V result) {
+		QueueingFuture future = new QueueingFuture(task, result);
+		executor.execute(future);
+		return future;
+	}
+
+	@Override
+	public Future<V> take() throws InterruptedException {
+		Future<V> future;
+		// Otro consumidor puede llevarse la tarea entre el aviso y el poll(): se vuelve a esperar.
+		while ((future = completed.poll()) == null) {
+			awaitNotEmpty(Long.MAX_VALUE);
+		}
+		return future;
+	}
+
+	@Override
+	public Future<V> poll() {
+		return completed.poll();
+	}
+
+	@Override
+	public Future<V> poll(long timeout, TimeUnit unit) throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		Future<V> future;
+		while ((future = completed.poll()) == null) {
+			if (!awaitNotEmpty(deadline)) {
+				return null;
+			}
+		}
+		return future;
+	}
+
+	/**
+	 * Pasa a 'target' las tareas terminadas que haya ahora mismo, hasta 'max'. No se bloquea nunca.
+	 *
+	 * @return Cuántas tareas se han pasado (0 si no había ninguna terminada).
+	 */
+	public int drainTo(Collection<? super Future<V>> target, int max) {
+		int drained = 0;
+		Future<V> future;
+		while (drained < max && (future = completed.poll()) != null) {
+			target.add(future);
+			drained++;
+		}
+		return drained;
+	}
+
+	/**
+	 * Recoge 'n' tareas terminadas, esperando a que terminen si hace falta, pero no más de 'timeout'.
+	 *
+	 * @return Las tareas recogidas: 'n', o menos si se agotó el tiempo (puede estar vacía).
+	 */
+	public List<Future<V>> takeBatch(int n, long timeout, TimeUnit unit) throws InterruptedException {
+		List<Future<V>> batch = new ArrayList<>(n);
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		drainTo(batch, n);
+		while (batch.size() < n && awaitNotEmpty(deadline)) {
+			drainTo(batch, n - batch.size());
+		}
+		return batch;
+	}
+
+	/**
+	 * Espera a que haya alguna tarea terminada o a que llegue 'deadline' (de System.nanoTime(),
+	 * o Long.MAX_VALUE para esperar sin límite).
+	 *
+	 * @return true si hay alguna tarea terminada, false si se agotó el tiempo.
+	 */
+	private boolean awaitNotEmpty(long deadline) throws InterruptedException {
+		// Primero se apunta como esperando y DESPUÉS mira la cola: si una tarea termina justo
+		// entre medias, o la ve en la cola, o el hilo que la terminó ve 'waiters' y le avisa.
+		waiters.incrementAndGet();
+		try {
+			lock.lockInterruptibly();
+			try {
+				while (completed.isEmpty()) {
+					if (deadline == Long.MAX_VALUE) {
+						notEmpty.await();
+					} else {
+						long remaining = deadline - System.nanoTime();
+						if (remaining <= 0) {
+							return false;
+						}
+						notEmpty.awaitNanos(remaining);
+					}
+				}
+				return true;
+			} finally {
+				lock.unlock();
+			}
+		} finally {
+			waiters.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Lo llama el hilo del pool al terminar una tarea.
+	 */
+	private void completed(Future<V> future) {
+		completed.offer(future);
+		if (waiters.get() > 0) {
+			lock.lock();
+			try {
+				notEmpty.signalAll();
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Un `FutureTask` que se añade a la cola de terminadas cuando termina (igual que en
+	 * `ExecutorCompletionService`, también si se cancela).
+	 */
+	private class QueueingFuture extends FutureTask<V> {
+
+		QueueingFuture(Callable<V> task) {
+			super(task);
+		}
+
+		QueueingFuture(Runnable task, V result) {
+			super(task, result);
+		}
+
+		@Override
+		protected void done() {
+			completed(this);
+		}
+	}
+}
@@ -0,0 +1,275 @@
+package tuts.common;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Una tarea 'Callable' que calcula el factorial de un número con precisión arbitraria
+ * (`BigInteger`), repartiendo las multiplicaciones entre los hilos de un `ForkJoinPool`.
+ *
+ * <h2>¿Qué problema resuelve?</h2>
+ * `FactorialTaskA` y `FactorialTaskB` multiplican en un `long`, que se desborda a partir de 20!
+ * sin avisar (30! da un número negativo). Además, multiplican de uno en uno: el resultado
+ * parcial crece en cada paso y cada multiplicación es más cara que la anterior.
+ *
+ * <h2>¿Cómo funciona?</h2>
+ * <ul>
+ *   <li><b>Árbol de productos:</b> en lugar de 1 * 2 * 3 * ... * n en orden, el rango se parte
+ *       por la mitad, se multiplica cada mitad (en paralelo, con fork/join) y se multiplican los
+ *       dos resultados. Así se multiplican números de tamaño parecido, que es donde los
+ *       algoritmos de `BigInteger` (Karatsuba, Toom-Cook) son más rápidos.</li>
+ *   <li><b>Hojas en un `long`:</b> en las hojas del árbol, los factores se multiplican en un
+ *       `long` mientras caben, y solo se pasa a `BigInteger` cuando se desbordaría.</li>
+ *   <li><b>"Prime swing" (opcional):</b> el algoritmo de Luschny. Usa que
+ *       n! = ((n/2)!)² · swing(n), donde swing(n) se calcula a partir de la descomposición en
+ *       primos. Hay muchas menos multiplicaciones, y elevar al cuadrado es más barato que
+ *       multiplicar.</li>
+ * </ul>
+ *
+ * <h2>Cancelación</h2>
+ * Como `FactorialTaskB`, responde a `future.cancel(true)` (la interrupción del hilo que ejecuta
+ * `call()`), y como `FactorialTaskA`, también a {@link #cancel()}. En los dos casos, las
+ * subtareas del pool dejan de multiplicar en cuanto lo ven, y `call()` devuelve -1.
+ */
+public class BigFactorialTask implements Callable<BigInteger> {
+
+	// Por debajo de tantos factores, una subtarea multiplica sin volver a dividirse.
+	private static final int LEAF_SIZE = 256;
+	private static final BigInteger CANCELLED = BigInteger.valueOf(-1);
+
+	private static int count = 0;
+	private final String taskId;
+
+	private final int n;
+	private final boolean primeSwing;
+	private final ForkJoinPool pool;
+
+	private volatile boolean shutdown = false;
+
+	/**
+	 * @param n El número del que se calculará el factorial.
+	 * @param primeSwing true para usar el algoritmo "prime swing"; false para el árbol de
+	 *                   productos de 2..n.
+	 * @param pool El pool en el que se reparten las multiplicaciones.
+	 */
+	public BigFactorialTask(int n, boolean primeSwing, ForkJoinPool pool) {
+		if (n < 0) {
+			throw new IllegalArgumentException("El factorial de un número negativo no existe: " + n);
+		}
+		this.n = n;
+		this.primeSwing = primeSwing;
+		this.pool = pool;
+		this.taskId = "BigFactorialTask" + (++count);
+	}
+
+	public BigFactorialTask(int n) {
+		this(n, false, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * @return n!, o -1 si la tarea fue cancelada.
+	 */
+	@Override
+	public BigInteger call() throws Exception {
+		ForkJoinTask<BigInteger> root = pool.submit(() -> primeSwing ? swingFactorial(n) : product(2, n));
+		try {
+			// get() espera sin ocupar el hilo, y lanza InterruptedException si lo interrumpen.
+			BigInteger result = root.get();
+			return shutdown ? CANCELLED : result;
+		} catch (InterruptedException e) {
+			System.out.println("***** [" + Thread.currentThread().getName() + "] <" + taskId
+					+ "> Interrupted. Cancelling ...");
+			shutdown = true;
+			root.cancel(false);
+			// Re-establece la bandera de interrupción, como en FactorialTaskB.
+			Thread.currentThread().interrupt();
+			return CANCELLED;
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof Exception) {
+				throw (Exception) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Solicita la cancelación desde otro hilo, como `FactorialTaskA.cancel()`.
+	 */
+	public void cancel() {
+		shutdown = true;
+	}
+
+	// --- ÁRBOL DE PRODUCTOS ---
+
+	/**
+	 * @return El producto de los enteros de 'from' a 'to' (ambos incluidos), o 1 si el rango está vacío.
+	 */
+	private BigInteger product(long from, long to) {
+		return new RangeProduct(from, to).invoke();
+	}
+
+	private class RangeProduct extends RecursiveTask<BigInteger> {
+		private static final long serialVersionUID = 1L;
+
+		private final long from;
+		private final long to;
+
+		RangeProduct(long from, long to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected BigInteger compute() {
+			if (to - from < LEAF_SIZE) {
+				return leafProduct(from, to, null);
+			}
+			long middle = (from + to) >>> 1;
+			RangeProduct left = new RangeProduct(from, middle);
+			left.fork();
+			BigInteger right = new RangeProduct(middle + 1, to).compute();
+			BigInteger leftResult = left.join();
+			return shutdown ? BigInteger.ONE : leftResult.multiply(right);
+		}
+	}
+
+	/**
+	 * Multiplica en secuencia los enteros de 'from' a 'to' o, si 'factors' no es null,
+	 * factors[from..to].
+	 */
+	private BigInteger leafProduct(long from, long to, long[] factors) {
+		BigInteger result = BigInteger.ONE;
+		long partial = 1;
+		for (long i = from; i <= to; i++) {
+			if (shutdown) {
+				return BigInteger.ONE; // El resultado ya no importa.
+			}
+			long factor = factors == null ? i : factors[(int) i];
+			if (Math.multiplyHigh(partial, factor) != 0 || partial * factor < 0) {
+				// No cabe en un long: se pasa lo acumulado a BigInteger.
+				result = result.multiply(BigInteger.valueOf(partial));
+				partial = factor;
+			} else {
+				partial *= factor;
+			}
+		}
+		return result.multiply(BigInteger.valueOf(partial));
+	}
+
+	/**
+	 * El producto de factors[from..to] con un árbol de productos, como RangeProduct.
+	 */
+	private class ArrayProduct extends RecursiveTask<BigInteger> {
+		private static final long serialVersionUID = 1L;
+
+		private final long[] factors;
+		private final int from;
+		private final int to;
+
+		ArrayProduct(long[] factors, int from, int to) {
+			this.factors = factors;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected BigInteger compute() {
+			if (to - from < LEAF_SIZE) {
+				return leafProduct(from, to, factors);
+			}
+			int middle = (from + to) >>> 1;
+			ArrayProduct left = new ArrayProduct(factors, from, middle);
+			left.fork();
+			BigInteger right = new ArrayProduct(factors, middle + 1, to).compute();
+			BigInteger leftResult = left.join();
+			return shutdown ? BigInteger.ONE : leftResult.multiply(right);
+		}
+	}
+
+	// --- PRIME SWING (LUSCHNY) ---
+
+	/**
+	 * n! = (parte impar de n!) · 2^(n - número de unos de n en binario).
+	 */
+	private BigInteger swingFactorial(int n) {
+		if (n < 2) {
+			return BigInteger.ONE;
+		}
+		boolean[] composite = sieve(n);
+		return oddFactorial(n, composite).shiftLeft(n - Integer.bitCount(n));
+	}
+
+	/**
+	 * La parte impar de n!: oddFactorial(n) = oddFactorial(n/2)² · swing(n).
+	 */
+	private BigInteger oddFactorial(int n, boolean[] composite) {
+		if (n < 2 || shutdown) {
+			return BigInteger.ONE;
+		}
+		// swing(n) no depende de la mitad: se calcula en paralelo con ella.
+		long[] factors = swingFactors(n, composite);
+		ForkJoinTask<BigInteger> swing = new ArrayProduct(factors, 0, factors.length - 1).fork();
+		BigInteger half = oddFactorial(n / 2, composite);
+		BigInteger swingResult = swing.join();
+		if (shutdown) {
+			return BigInteger.ONE;
+		}
+		// multiply() detecta que es el mismo número y usa el algoritmo de elevar al cuadrado.
+		return half.multiply(half).multiply(swingResult);
+	}
+
+	/**
+	 * Los factores de la parte impar de swing(n) = n! / ((n/2)!)², a partir de sus primos impares.
+	 */
+	private static long[] swingFactors(int n, boolean[] composite) {
+		long[] factors = new long[Math.max(16, n / 2)];
+		int size = 0;
+		int sqrt = (int) Math.sqrt(n);
+		for (int p = 3; p <= n; p += 2) {
+			if (composite[p]) {
+				continue;
+			}
+			if (p <= sqrt) {
+				// El exponente de p: cuántos de n/p, n/p², ... son impares.
+				long power = 1;
+				for (int q = n / p; q > 0; q /= p) {
+					if ((q & 1) == 1) {
+						power *= p;
+					}
+				}
+				if (power > 1) {
+					factors[size++] = power;
+				}
+			} else if (((n / p) & 1) == 1) {
+				// Los primos mayores que la raíz aparecen como mucho una vez.
+				factors[size++] = p;
+			}
+		}
+		return Arrays.copyOf(factors, size);
+	}
+
+	/**
+	 * La criba de Eratóstenes: composite[i] es true si i no es primo (solo importan los impares).
+	 */
+	private static boolean[] sieve(int n) {
+		boolean[] composite = new boolean[n + 1];
+		for (long i = 3; i * i <= n; i += 2) {
+			if (!composite[(int) i]) {
+				for (long j = i * i; j <= n; j += 2 * i) {
+					composite[(int) j] = true;
+				}
+			}
+		}
+		return composite;
+	}
+
+	@Override
+	public String toString() {
+		return taskId + "[" + n + "!" + (primeSwing ? ", prime swing" : "") + "]";
+	}
+}
@@ -0,0 +1,131 @@
+package tuts.common;
+
+import java.math.BigInteger;
+import java.util.concurrent.Callable;
+
+/**
+ * Una tarea 'Callable' que calcula n! con `BigInteger` partiendo del factorial más cercano que
+ * haya en un `FactorialCheckpoints` compartido, en lugar de empezar desde 1.
+ *
+ * <h2>¿Cómo funciona?</h2>
+ * <ol>
+ *   <li>Pide al almacén el mayor k! con k ≤ n (si no hay ninguno, parte de 0! = 1).</li>
+ *   <li>Multiplica de k+1 a n por tramos. Cada tramo se multiplica aparte, con un árbol de
+ *       productos como en `BigFactorialTask`, y después se multiplica por lo que lleva: al
+ *       final de cada tramo, tiene el factorial de su último número.</li>
+ *   <li>Los tramos van creciendo (cada uno tan largo como lo ya hecho, hasta un cuarto del
+ *       total), para que las dos partes de cada multiplicación tengan un tamaño parecido:
+ *       multiplicar un número enorme por uno pequeño, muchas veces, sale muy caro.</li>
+ *   <li>Los factoriales a partir de la mitad del camino, y el final, se dejan en el almacén
+ *       para que otras peticiones de números cercanos también los aprovechen.</li>
+ * </ol>
+ *
+ * <h2>Cancelación</h2>
+ * Comprueba si la han cancelado, con `future.cancel(true)` (la interrupción, como
+ * `FactorialTaskB`) o con {@link #cancel()} (como `FactorialTaskA`), mientras multiplica cada
+ * tramo. En ese caso, antes de devolver -1, publica el último factorial completo: quien lo
+ * vuelva a pedir seguirá desde ahí.
+ */
+public class CheckpointedFactorialTask implements Callable<BigInteger> {
+
+	private static final int MIN_SEGMENT = 256;
+	private static final int MIN_CHECKPOINTS = 4;
+	// Por debajo de tantos factores, el producto de un tramo se hace en secuencia.
+	private static final int LEAF_SIZE = 256;
+	private static final BigInteger CANCELLED = BigInteger.valueOf(-1);
+
+	private static int count = 0;
+	private final String taskId;
+
+	private final int n;
+	private final FactorialCheckpoints checkpoints;
+
+	private volatile boolean shutdown = false;
+
+	public CheckpointedFactorialTask(int n, FactorialCheckpoints checkpoints) {
+		if (n < 0) {
+			throw new IllegalArgumentException("El factorial de un número negativo no existe: " + n);
+		}
+		this.n = n;
+		this.checkpoints = checkpoints;
+		this.taskId = "CheckpointedFactorialTask" + (++count);
+	}
+
+	/**
+	 * @return n!, o -1 si la tarea fue cancelada.
+	 */
+	@Override
+	public BigInteger call() {
+		FactorialCheckpoints.Checkpoint start = checkpoints.nearest(n);
+		BigInteger factorial = start.factorial;
+		int done = start.n;
+		// Al menos MIN_CHECKPOINTS tramos, para no perder mucho trabajo si la cancelan.
+		long maxSegment = Math.max(MIN_SEGMENT, (n - done) / MIN_CHECKPOINTS);
+
+		while (done < n) {
+			// Cada tramo es como mucho tan largo como lo ya hecho: así su producto tiene un tamaño
+			// parecido al de 'factorial', y la multiplicación entre los dos sale barata.
+			long segment = Math.min(maxSegment, Math.max(MIN_SEGMENT, done));
+			int to = (int) Math.min(n, done + segment);
+			BigInteger product = product(done + 1, to);
+			// --- Punto de control para la cancelación ---
+			if (product == null) {
+				System.out.println("***** [" + Thread.currentThread().getName() + "] <" + taskId
+						+ "> Cancelling. Saving " + done + "! ...");
+				checkpoints.publish(done, factorial);
+				return CANCELLED;
+			}
+			factorial = factorial.multiply(product);
+			done = to;
+			// Los factoriales de la segunda mitad sirven a otras peticiones de números cercanos.
+			if (done < n && done >= n / 2) {
+				checkpoints.publish(done, factorial);
+			}
+		}
+		checkpoints.publish(n, factorial);
+		return factorial;
+	}
+
+	/**
+	 * Solicita la cancelación desde otro hilo, como `FactorialTaskA.cancel()`.
+	 */
+	public void cancel() {
+		shutdown = true;
+	}
+
+	private boolean cancelled() {
+		return shutdown || Thread.currentThread().isInterrupted();
+	}
+
+	/**
+	 * @return El producto de los enteros de 'from' a 'to', partiendo el rango por la mitad para
+	 *         multiplicar números de tamaño parecido; o null si cancelan la tarea mientras tanto.
+	 */
+	private BigInteger product(long from, long to) {
+		if (to - from < LEAF_SIZE) {
+			if (cancelled()) {
+				return null;
+			}
+			BigInteger result = BigInteger.ONE;
+			long partial = 1;
+			for (long i = from; i <= to; i++) {
+				if (Math.multiplyHigh(partial, i) != 0 || partial * i < 0) {
+					result = result.multiply(BigInteger.valueOf(partial));
+					partial = i;
+				} else {
+					partial *= i;
+				}
+			}
+			return result.multiply(BigInteger.valueOf(partial));
+		}
+		long middle = (from + to) >>> 1;
+		BigInteger left = product(from, middle);
+		BigInteger right = left == null ? null : product(middle + 1, to);
+		return right == null ? null : left.multiply(right);
+	}
+
+	@Override
+	public String toString() {
+		return taskId + "[" + n + "!]";
+	}
+}
@@ -0,0 +1,445 @@
+package tuts.common;
+
+import java.lang.Thread.UncaughtExceptionHandler;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Un "decorador" que pone un cortacircuitos (circuit breaker) delante de cualquier `ExecutorService`.
+ *
+ * <h2>¿Qué problema resuelve?</h2>
+ * Cuando un tipo de tarea empieza a fallar siempre (como `ExceptionLeakingTask`), seguir
+ * enviándola al pool solo sirve para pagar el coste de cada fallo: manejadores de excepciones,
+ * hilos que mueren y se reemplazan... y ese coste lo sufren también las tareas sanas.
+ *
+ * <h2>¿Cómo funciona?</h2>
+ * Cada tipo de tarea (su clase) tiene su propio cortacircuitos, con tres estados:
+ * <ul>
+ *   <li><b>CLOSED (cerrado):</b> las tareas pasan al pool. Se cuenta cuántas terminan bien y
+ *       cuántas fallan en una ventana deslizante (los últimos 'window', en WINDOW_BUCKETS
+ *       trozos). Si, con al menos 'minimumCalls' tareas en la ventana, el porcentaje de fallos
+ *       llega a 'failureThreshold', el circuito se abre.</li>
+ *   <li><b>OPEN (abierto):</b> las tareas de ese tipo se rechazan al instante con una
+ *       `RejectedExecutionException`, sin llegar al pool. Las de otros tipos siguen pasando.</li>
+ *   <li><b>HALF_OPEN (medio abierto):</b> pasado 'openDuration', se deja pasar UNA tarea de
+ *       prueba. Si termina bien, el circuito se cierra; si falla, vuelve a abrirse. Si la
+ *       cancelan, o si tarda más de 'openDuration' (puede haberse colgado), se deja pasar otra.</li>
+ * </ul>
+ * No hay locks: el estado es un `AtomicInteger` que se cambia con CAS, y la ventana son
+ * contadores atómicos.
+ *
+ * <h2>Integración con los manejadores de excepciones</h2>
+ * Las excepciones de las tareas siguen su camino normal (el `UncaughtExceptionHandler` del hilo
+ * con `execute()`, el `Future` con `submit()`). Además, cada vez que un circuito se abre, se
+ * avisa al manejador que se pase al constructor (por ejemplo, un `ThreadExceptionNotifier`).
+ */
+public class CircuitBreakerExecutor extends AbstractExecutorService {
+
+	/**
+	 * Los estados de un cortacircuitos.
+	 */
+	public enum State {
+		CLOSED, OPEN, HALF_OPEN
+	}
+
+	private static final int WINDOW_BUCKETS = 10;
+
+	// Cómo se deja pasar una tarea al pedir permiso.
+	private static final int ADMIT = 1;
+	private static final int PROBE = 2;
+
+	private final ExecutorService delegate;
+	private final UncaughtExceptionHandler openHandler;
+	private final double failureThreshold;
+	private final int minimumCalls;
+	private final long bucketNanos;
+	private final long openDurationNanos;
+	// El origen del tiempo de la ventana: System.nanoTime() puede ser negativo.
+	private final long startNanos = System.nanoTime();
+	private final ConcurrentHashMap<Class<?>, Breaker> breakers = new ConcurrentHashMap<>();
+	// La tarea que acaba de crear newTaskFor() en este hilo y que aún no ha pasado por execute().
+	// `ExecutorCompletionService` (y con él invokeAny) la envuelve en su propio Runnable antes
+	// de enviarla: ese envoltorio no es un tipo de tarea y no debe tener cortacircuitos.
+	private final ThreadLocal<GuardedFuture<?>> unsent = new ThreadLocal<>();
+
+	/**
+	 * @param delegate El pool que ejecuta las tareas.
+	 * @param openHandler A quién avisar cuando un circuito se abre, o null para no avisar a nadie.
+	 * @param failureThreshold El porcentaje de fallos (de 0 a 1) que abre el circuito.
+	 * @param minimumCalls Las tareas mínimas en la ventana para poder abrirlo.
+	 * @param window La duración de la ventana deslizante.
+	 * @param openDuration Cuánto tiempo queda abierto antes de probar otra vez.
+	 */
+	public CircuitBreakerExecutor(ExecutorService delegate, UncaughtExceptionHandler openHandler,
+			double failureThreshold, int minimumCalls, long window, long openDuration, TimeUnit unit) {
+		this.delegate = delegate;
+		this.openHandler = openHandler;
+		this.failureThreshold = failureThreshold;
+		this.minimumCalls = minimumCalls;
+		this.bucketNanos = Math.max(1, unit.toNanos(window) / WINDOW_BUCKETS);
+		this.openDurationNanos = unit.toNanos(openDuration);
+	}
+
+	/**
+	 * Abre el circuito con un 50% de fallos (con al menos 20 tareas) en los últimos 10 segundos,
+	 * y lo deja abierto 5 segundos.
+	 */
+	public CircuitBreakerExecutor(ExecutorService delegate, UncaughtExceptionHandler openHandler) {
+		this(delegate, openHandler, 0.5, 20, 10, 5, TimeUnit.SECONDS);
+	}
+
+	@Override
+	public void execute(Runnable command) {
+		GuardedFuture<?> pending = unsent.get();
+		if (pending != null) {
+			unsent.remove();
+		}
+		// Viene de submit() (la propia tarea) o de un ExecutorCompletionService (un envoltorio de
+		// la tarea que se acaba de crear): el permiso ya se pidió al crear la tarea.
+		GuardedFuture<?> future = command instanceof GuardedFuture<?> guarded ? guarded : pending;
+		if (future != null) {
+			try {
+				delegate.execute(command);
+			} catch (RejectedExecutionException e) {
+				future.breaker.cancelProbe(future.probe);
+				throw e;
+			}
+			return;
+		}
+		Breaker breaker = breakerFor(command.getClass());
+		boolean probe = breaker.acquire() == PROBE;
+		try {
+			delegate.execute(() -> {
+				boolean succeeded = false;
+				try {
+					command.run();
+					succeeded = true;
+				} finally {
+					// La excepción, si la hay, sigue hacia el manejador del hilo.
+					breaker.record(succeeded, probe);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			breaker.cancelProbe(probe);
+			throw e;
+		}
+	}
+
+	@Override
+	protected <T> RunnableFuture<T> newTaskFor(Runnable runnable, T value) {
+		Breaker breaker = breakerFor(runnable.getClass());
+		return unsent(new GuardedFuture<>(new RunnableAdapter<>(runnable, value), breaker, breaker.acquire() == PROBE));
+	}
+
+	@Override
+	protected <T> RunnableFuture<T> newTaskFor(Callable<T> callable) {
+		Breaker breaker = breakerFor(callable.getClass());
+		return unsent(new GuardedFuture<>(callable, breaker, breaker.acquire() == PROBE));
+	}
+
+	/**
+	 * Apunta la tarea recién creada para reconocerla en execute(), aunque llegue envuelta.
+	 */
+	private <T> GuardedFuture<T> unsent(GuardedFuture<T> future) {
+		unsent.set(future);
+		return future;
+	}
+
+	/**
+	 * @return El estado y los contadores del cortacircuitos de un tipo de tarea (aunque aún no exista).
+	 */
+	public Snapshot snapshot(Class<?> taskType) {
+		return new Snapshot(taskType, breakerFor(taskType));
+	}
+
+	/**
+	 * @return El estado y los contadores de todos los tipos de tarea vistos hasta ahora.
+	 */
+	public List<Snapshot> snapshots() {
+		List<Snapshot> result = new ArrayList<>();
+		breakers.forEach((type, breaker) -> result.add(new Snapshot(type, breaker)));
+		return result;
+	}
+
+	@Override
+	public void shutdown() {
+		delegate.shutdown();
+	}
+
+	@Override
+	public List<Runnable> shutdownNow() {
+		return delegate.shutdownNow();
+	}
+
+	@Override
+	public boolean isShutdown() {
+		return delegate.isShutdown();
+	}
+
+	@Override
+	public boolean isTerminated() {
+		return delegate.isTerminated();
+	}
+
+	@Override
+	public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+		return delegate.awaitTermination(timeout, unit);
+	}
+
+	private Breaker breakerFor(Class<?> taskType) {
+		return breakers.computeIfAbsent(taskType, Breaker::new);
+	}
+
+	/**
+	 * El cortacircuitos de un tipo de tarea.
+	 */
+	private class Breaker {
+		private final Class<?> taskType;
+		private final AtomicInteger state = new AtomicInteger(State.CLOSED.ordinal());
+		// Cuándo se abrió el circuito o, si está medio abierto, cuándo salió la tarea de prueba.
+		// Se cambia con CAS para que solo un hilo envíe cada prueba.
+		private final AtomicLong openedAt = new AtomicLong();
+
+		// La ventana deslizante: un trozo por cada 'bucketNanos'. 'epochs' guarda a qué trozo de
+		// tiempo pertenecen los contadores de cada posición; si es uno viejo, se reinician.
+		private final AtomicLongArray epochs = new AtomicLongArray(WINDOW_BUCKETS);
+		private final AtomicLongArray successes = new AtomicLongArray(WINDOW_BUCKETS);
+		private final AtomicLongArray failures = new AtomicLongArray(WINDOW_BUCKETS);
+
+		private final LongAdder totalSucceeded = new LongAdder();
+		private final LongAdder totalFailed = new LongAdder();
+		private final LongAdder shed = new LongAdder();
+		private final LongAdder timesOpened = new LongAdder();
+
+		Breaker(Class<?> taskType) {
+			this.taskType = taskType;
+		}
+
+		/**
+		 * Pide permiso para enviar una tarea al pool.
+		 * @return ADMIT o PROBE (la tarea de prueba del estado medio abierto).
+		 * @throws RejectedExecutionException Si el circuito está abierto.
+		 */
+		int acquire() {
+			int current = state.get();
+			if (current == State.CLOSED.ordinal()) {
+				return ADMIT;
+			}
+			// Abierto y ya ha pasado el tiempo, o medio abierto y la prueba no ha respondido a
+			// tiempo: solo el hilo que gana el CAS envía la (nueva) prueba.
+			long now = System.nanoTime();
+			long since = openedAt.get();
+			if (now - since >= openDurationNanos && openedAt.compareAndSet(since, now)) {
+				if (current == State.OPEN.ordinal()) {
+					state.compareAndSet(current, State.HALF_OPEN.ordinal());
+				}
+				return PROBE;
+			}
+			shed.increment();
+			throw new RejectedExecutionException("Circuito abierto para " + taskType.getName());
+		}
+
+		/**
+		 * Apunta cómo terminó una tarea y, si toca, cambia de estado.
+		 */
+		void record(boolean succeeded, boolean probe) {
+			if (succeeded) {
+				totalSucceeded.increment();
+			} else {
+				totalFailed.increment();
+			}
+			if (probe) {
+				if (succeeded) {
+					resetWindow();
+					state.set(State.CLOSED.ordinal());
+				} else {
+					open(State.HALF_OPEN);
+				}
+				return;
+			}
+
+			int bucket = currentBucket(System.nanoTime());
+			if (succeeded) {
+				successes.incrementAndGet(bucket);
+				return;
+			}
+			failures.incrementAndGet(bucket);
+			if (state.get() == State.CLOSED.ordinal()) {
+				long[] counts = windowCounts();
+				long calls = counts[0] + counts[1];
+				if (calls >= minimumCalls && counts[1] >= failureThreshold * calls) {
+					open(State.CLOSED);
+				}
+			}
+		}
+
+		/**
+		 * Si el pool rechazó la tarea de prueba o la cancelaron, el circuito vuelve a abierto para
+		 * que otra tarea haga de prueba pasado 'openDuration'.
+		 */
+		void cancelProbe(boolean probe) {
+			if (probe) {
+				state.compareAndSet(State.HALF_OPEN.ordinal(), State.OPEN.ordinal());
+			}
+		}
+
+		private void open(State from) {
+			// Solo se toca 'openedAt' si parece que este hilo va a abrir el circuito, para no
+			// alargar el tiempo abierto con cada fallo de las tareas que ya estaban en el pool.
+			if (state.get() != from.ordinal()) {
+				return;
+			}
+			openedAt.set(System.nanoTime());
+			if (!state.compareAndSet(from.ordinal(), State.OPEN.ordinal())) {
+				return;
+			}
+			timesOpened.increment();
+			if (openHandler != null) {
+				openHandler.uncaughtException(Thread.currentThread(), new RejectedExecutionException(
+						"Circuito abierto para " + taskType.getName() + ": demasiados fallos recientes"));
+			}
+		}
+
+		/**
+		 * @return La posición de la ventana para este instante, reiniciada si contenía un trozo viejo.
+		 *         Si dos hilos la reinician a la vez, se puede perder alguna cuenta: es una
+		 *         estimación, y a cambio no hay locks.
+		 */
+		private int currentBucket(long now) {
+			long epoch = (now - startNanos) / bucketNanos;
+			int index = (int) (epoch % WINDOW_BUCKETS);
+			long stored = epochs.get(index);
+			if (stored != epoch && epochs.compareAndSet(index, stored, epoch)) {
+				successes.set(index, 0);
+				failures.set(index, 0);
+			}
+			return index;
+		}
+
+		/**
+		 * @return {éxitos, fallos} dentro de la ventana, ignorando los trozos viejos.
+		 */
+		long[] windowCounts() {
+			long oldestEpoch = (System.nanoTime() - startNanos) / bucketNanos - WINDOW_BUCKETS + 1;
+			long ok = 0;
+			long ko = 0;
+			for (int i = 0; i < WINDOW_BUCKETS; i++) {
+				if (epochs.get(i) >= oldestEpoch) {
+					ok += successes.get(i);
+					ko += failures.get(i);
+				}
+			}
+			return new long[] {ok, ko};
+		}
+
+		private void resetWindow() {
+			for (int i = 0; i < WINDOW_BUCKETS; i++) {
+				successes.set(i, 0);
+				failures.set(i, 0);
+			}
+		}
+	}
+
+	/**
+	 * Las tareas de `submit()`: un `FutureTask` que apunta en el cortacircuitos cómo terminó.
+	 */
+	private static class GuardedFuture<T> extends FutureTask<T> {
+		final Breaker breaker;
+		final boolean probe;
+
+		GuardedFuture(Callable<T> callable, Breaker breaker, boolean probe) {
+			super(callable);
+			this.breaker = breaker;
+			this.probe = probe;
+		}
+
+		@Override
+		protected void set(T value) {
+			super.set(value);
+			breaker.record(true, probe);
+		}
+
+		@Override
+		protected void setException(Throwable t) {
+			super.setException(t);
+			breaker.record(false, probe);
+		}
+
+		/**
+		 * Se llama al terminar de cualquier forma. Una prueba cancelada no dice nada del tipo de
+		 * tarea, pero hay que liberarla: si no, el circuito se quedaría medio abierto.
+		 */
+		@Override
+		protected void done() {
+			if (isCancelled()) {
+				breaker.cancelProbe(probe);
+			}
+		}
+	}
+
+	/**
+	 * Convierte un `Runnable` en un `Callable` que devuelve 'value' (como `Executors.callable`).
+	 */
+	private static class RunnableAdapter<T> implements Callable<T> {
+		private final Runnable task;
+		private final T value;
+
+		RunnableAdapter(Runnable task, T value) {
+			this.task = task;
+			this.value = value;
+		}
+
+		@Override
+		public T call() {
+			task.run();
+			return value;
+		}
+	}
+
+	/**
+	 * Una foto de un cortacircuitos, para mostrarla o enviarla a un sistema de monitorización.
+	 * Los campos son públicos y finales, como en `TaskResult`.
+	 */
+	public static class Snapshot {
+		public final String taskType;
+		public final State state;
+		public final long windowSuccesses;
+		public final long windowFailures;
+		public final long totalSucceeded;
+		public final long totalFailed;
+		// Tareas rechazadas sin llegar al pool porque el circuito estaba abierto.
+		public final long shed;
+		public final long timesOpened;
+
+		private Snapshot(Class<?> type, CircuitBreakerExecutor.Breaker breaker) {
+			this.taskType = type.getName();
+			this.state = State.values()[breaker.state.get()];
+			long[] counts = breaker.windowCounts();
+			this.windowSuccesses = counts[0];
+			this.windowFailures = counts[1];
+			this.totalSucceeded = breaker.totalSucceeded.sum();
+			this.totalFailed = breaker.totalFailed.sum();
+			this.shed = breaker.shed.sum();
+			this.timesOpened = breaker.timesOpened.sum();
+		}
+
+		@Override
+		public String toString() {
+			return taskType + " state=" + state + " window=" + windowSuccesses + "ok/" + windowFailures + "ko"
+					+ " succeeded=" + totalSucceeded + " failed=" + totalFailed + " shed=" + shed
+					+ " opened=" + timesOpened;
+		}
+	}
+}
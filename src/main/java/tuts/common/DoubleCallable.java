@@ -0,0 +1,13 @@
+package tuts.common;
+
+/**
+ * La versión de `Callable<Double>` que devuelve un `double` primitivo. Ver `IntCallable`.
+ */
+@FunctionalInterface
+public interface DoubleCallable {
+
+	/**
+	 * @return El resultado del cálculo, sin envolver.
+	 */
+	double call() throws Exception;
+}
@@ -0,0 +1,21 @@
+package tuts.common;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Un `Future` cuyo resultado es un `double`: se consulta con {@link #getDouble()} sin crear ningún objeto.
+ */
+public interface DoubleFuture extends PrimitiveFuture {
+
+	/**
+	 * Igual que `Future.get()`: espera a que termine la tarea y devuelve su resultado.
+	 */
+	double getDouble() throws InterruptedException, ExecutionException;
+
+	/**
+	 * Igual que `Future.get(timeout, unit)`.
+	 */
+	double getDouble(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException;
+}
@@ -0,0 +1,50 @@
+package tuts.common;
+
+/**
+ * La versión de `TaskResult<S, Double>` con el resultado como `double` primitivo (ver `IntTaskResult`).
+ * 
+ * @param <S> El tipo de dato para el identificador de la tarea.
+ */
+public class DoubleTaskResult<S> {
+
+	public final S taskId;
+	public final double result;
+
+	public DoubleTaskResult(S taskId, double result) {
+		this.taskId = taskId;
+		this.result = result;
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int hash = 1;
+		hash = prime * hash + Double.hashCode(result);
+		hash = prime * hash + ((taskId == null) ? 0 : taskId.hashCode());
+		return hash;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		DoubleTaskResult<?> other = (DoubleTaskResult<?>) obj;
+		if (Double.compare(result, other.result) != 0)
+			return false;
+		if (taskId == null) {
+			if (other.taskId != null)
+				return false;
+		} else if (!taskId.equals(other.taskId))
+			return false;
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return "~~~~~DoubleTaskResult [taskId=" + taskId + ", result=" + result + "]~~~~~";
+	}
+}
@@ -0,0 +1,155 @@
+package tuts.common;
+
+import java.lang.Thread.UncaughtExceptionHandler;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Un pool de tamaño fijo (como `Executors.newFixedThreadPool`) en el que un fallo de una tarea
+ * nunca mata al hilo y nunca se pierde, tanto con `execute()` como con `submit()`.
+ *
+ * <h2>¿Qué problema resuelve?</h2>
+ * Los ejemplos de `tut7.executors` muestran dos comportamientos distintos:
+ * <ul>
+ *   <li><b>`execute(Runnable)`:</b> la excepción escapa del hilo, se llama a su
+ *       `UncaughtExceptionHandler`... y el hilo muere. El pool tiene que crear otro hilo
+ *       para reemplazarlo, lo que cuesta tiempo en cada fallo.</li>
+ *   <li><b>`submit(...)`:</b> la excepción queda guardada en el `Future`. El manejador no se
+ *       entera nunca y, si nadie llama a `future.get()`, el fallo pasa desapercibido.</li>
+ * </ul>
+ *
+ * <h2>¿Cómo funciona?</h2>
+ * <ol>
+ *   <li>Las tareas de `execute()` se envuelven en un try-catch, así que la excepción no sale
+ *       del bucle del hilo y este sigue vivo para la siguiente tarea.</li>
+ *   <li>Las tareas de `submit()` usan un `FutureTask` que, además de guardar la excepción en
+ *       el `Future` (quien llame a `get()` la sigue recibiendo), avisa del fallo.</li>
+ *   <li>En ambos casos, el aviso se entrega al `UncaughtExceptionHandler` del hilo que ejecutó
+ *       la tarea (el que le haya puesto la fábrica o, si no tiene, el de por defecto), igual
+ *       que haría la JVM. Pero no lo llama el propio hilo: lo hace un hilo "informador"
+ *       aparte, para que el hilo del pool vuelva enseguida a por la siguiente tarea. Si el
+ *       informador va muy retrasado (más de REPORT_BACKLOG avisos pendientes), el propio hilo
+ *       del pool llama al manejador (como la política `CallerRunsPolicy`): va más lento, pero
+ *       no se pierde ningún fallo. Esos casos se cuentan en {@link #getInlineReports()}.</li>
+ * </ol>
+ */
+public class ExceptionCapturingThreadPoolExecutor extends ThreadPoolExecutor {
+
+	private static final int REPORT_BACKLOG = 1024;
+
+	private final LongAdder capturedFailures = new LongAdder();
+	private final LongAdder inlineReports = new LongAdder();
+	private final ThreadPoolExecutor reporter;
+
+	/**
+	 * @param poolSize El número de hilos del pool.
+	 * @param threadFactory La fábrica de los hilos del pool, que es la que les pone el manejador.
+	 */
+	public ExceptionCapturingThreadPoolExecutor(int poolSize, ThreadFactory threadFactory) {
+		super(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), threadFactory);
+		this.reporter = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(REPORT_BACKLOG), NamedBuilderThreadsFactory.ofPlatform("FailureReporter-"),
+				(report, executor) -> {
+					// Informador saturado o ya apagado: avisa el propio hilo del pool.
+					inlineReports.increment();
+					report.run();
+				});
+	}
+
+	@Override
+	public void execute(Runnable command) {
+		// Las tareas de submit() ya llegan como ReportingFutureTask, que nunca lanza excepciones.
+		super.execute(command instanceof ReportingFutureTask ? command : new CapturingTask(command));
+	}
+
+	@Override
+	protected <T> RunnableFuture<T> newTaskFor(Runnable runnable, T value) {
+		return new ReportingFutureTask<>(runnable, value);
+	}
+
+	@Override
+	protected <T> RunnableFuture<T> newTaskFor(Callable<T> callable) {
+		return new ReportingFutureTask<>(callable);
+	}
+
+	/**
+	 * Cuando el pool ha terminado, el informador entrega los avisos pendientes y termina también.
+	 */
+	@Override
+	protected void terminated() {
+		reporter.shutdown();
+	}
+
+	/**
+	 * @return Los fallos capturados desde el principio (de `execute()` y de `submit()`).
+	 */
+	public long getCapturedFailures() {
+		return capturedFailures.sum();
+	}
+
+	/**
+	 * @return Los avisos que entregó el propio hilo del pool porque el informador iba muy retrasado.
+	 */
+	public long getInlineReports() {
+		return inlineReports.sum();
+	}
+
+	/**
+	 * Lo llama el hilo del pool que ejecutó la tarea: solo cuenta el fallo y deja el aviso al informador.
+	 */
+	private void report(Throwable failure) {
+		capturedFailures.increment();
+		Thread worker = Thread.currentThread();
+		// Se lee ahora, con el hilo vivo: sin manejador propio, devuelve su ThreadGroup, que
+		// delega en el de por defecto. Cuando el hilo termina, ya no tiene ninguno.
+		UncaughtExceptionHandler handler = worker.getUncaughtExceptionHandler();
+		reporter.execute(() -> handler.uncaughtException(worker, failure));
+	}
+
+	/**
+	 * Envuelve las tareas de `execute()` para que su excepción no salga del bucle del hilo.
+	 */
+	private class CapturingTask implements Runnable {
+		private final Runnable task;
+
+		CapturingTask(Runnable task) {
+			this.task = task;
+		}
+
+		@Override
+		public void run() {
+			try {
+				task.run();
+			} catch (Throwable t) {
+				report(t);
+			}
+		}
+	}
+
+	/**
+	 * El `FutureTask` de `submit()`: guarda la excepción en el `Future`, como siempre, y además avisa.
+	 */
+	private class ReportingFutureTask<T> extends FutureTask<T> {
+
+		ReportingFutureTask(Callable<T> callable) {
+			super(callable);
+		}
+
+		ReportingFutureTask(Runnable runnable, T value) {
+			super(runnable, value);
+		}
+
+		@Override
+		protected void setException(Throwable t) {
+			super.setException(t);
+			report(t);
+		}
+	}
+}
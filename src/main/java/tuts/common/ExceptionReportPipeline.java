@@ -0,0 +1,240 @@
+package tuts.common;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Un "buzón" asíncrono para notificar fallos de hilos sin hacer esperar al hilo que muere.
+ *
+ * <h2>¿Qué problema resuelve?</h2>
+ * La versión original de `ThreadExceptionNotifier` montaba el mensaje y lo imprimía en la
+ * consola desde el propio hilo que estaba muriendo. `System.out` está sincronizado: en una
+ * "tormenta" de fallos, cientos de hilos hacen cola para escribir y el pool tarda mucho más
+ * en reemplazarlos.
+ *
+ * <h2>¿Cómo funciona?</h2>
+ * <ol>
+ *   <li>El hilo que muere solo crea un pequeño {@link FailureRecord} y lo deja en un buffer
+ *       acotado y sin locks. Si el buffer está lleno, el fallo se cuenta como descartado y el
+ *       hilo sigue su camino: nunca se bloquea.</li>
+ *   <li>Un único hilo de fondo (demonio) vacía el buffer cada FLUSH_INTERVAL_MILLIS, agrupa
+ *       los fallos iguales (mismo tipo de excepción, mensaje y origen) y entrega el lote al
+ *       {@link NotificationSink} configurado.</li>
+ *   <li>Al terminar la JVM, un "shutdown hook" entrega lo que quede pendiente. Si se cierra
+ *       antes con {@link #close()}, el hook se retira.</li>
+ * </ol>
+ * Se crea con {@link #start(NotificationSink, int)}, que arranca el hilo de fondo y registra el
+ * hook cuando el objeto ya está construido del todo.
+ */
+public class ExceptionReportPipeline {
+
+	private static final int DEFAULT_CAPACITY = 1024;
+	private static final long FLUSH_INTERVAL_MILLIS = 100;
+
+	// El pipeline compartido que usa `new ThreadExceptionNotifier()`: un único hilo de fondo
+	// para toda la aplicación, aunque haya muchos manejadores.
+	private static volatile ExceptionReportPipeline defaultPipeline;
+
+	private final NotificationSink sink;
+	private final int capacity;
+	private final ConcurrentLinkedQueue<FailureRecord> buffer = new ConcurrentLinkedQueue<>();
+	// Huecos ocupados del buffer; se reserva con un incremento atómico antes de encolar.
+	private final AtomicInteger size = new AtomicInteger();
+	private final LongAdder dropped = new LongAdder();
+	private final LongAdder delivered = new LongAdder();
+	private long droppedReported = 0;
+	private final Thread flusher;
+	private final Thread shutdownHook;
+	private volatile boolean closed = false;
+
+	private ExceptionReportPipeline(NotificationSink sink, int capacity) {
+		this.sink = sink;
+		this.capacity = capacity;
+		this.flusher = new Thread(this::runFlusher, "ExceptionReportFlusher");
+		flusher.setDaemon(true);
+		this.shutdownHook = new Thread(this::close, "ExceptionReportShutdown");
+	}
+
+	/**
+	 * Crea un pipeline y arranca su hilo de fondo.
+	 *
+	 * @param sink El destino de las notificaciones.
+	 * @param capacity El máximo de fallos pendientes; por encima, se descartan (y se cuentan).
+	 */
+	public static ExceptionReportPipeline start(NotificationSink sink, int capacity) {
+		ExceptionReportPipeline pipeline = new ExceptionReportPipeline(sink, capacity);
+		pipeline.flusher.start();
+		Runtime.getRuntime().addShutdownHook(pipeline.shutdownHook);
+		return pipeline;
+	}
+
+	public static ExceptionReportPipeline start(NotificationSink sink) {
+		return start(sink, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * @return El pipeline compartido, que entrega por consola. Se crea la primera vez que se pide.
+	 */
+	public static ExceptionReportPipeline getDefault() {
+		ExceptionReportPipeline pipeline = defaultPipeline;
+		if (pipeline == null) {
+			synchronized (ExceptionReportPipeline.class) {
+				pipeline = defaultPipeline;
+				if (pipeline == null) {
+					pipeline = start(NotificationSink.console());
+					defaultPipeline = pipeline;
+				}
+			}
+		}
+		return pipeline;
+	}
+
+	/**
+	 * Registra un fallo. Lo llama el hilo que está muriendo: no bloquea nunca y no escribe nada.
+	 *
+	 * @return true si se aceptó, false si el buffer estaba lleno (o el pipeline cerrado) y se descartó.
+	 */
+	public boolean report(Thread t, Throwable e) {
+		if (closed) {
+			dropped.increment();
+			return false;
+		}
+		if (size.incrementAndGet() > capacity) {
+			size.decrementAndGet();
+			dropped.increment();
+			return false;
+		}
+		FailureRecord record = new FailureRecord(t, e);
+		buffer.offer(record);
+		// Si close() llegó mientras tanto, puede que el hilo de fondo ya haya hecho su última
+		// entrega: si el fallo sigue en el buffer, nadie lo entregará, así que cuenta como descartado.
+		if (closed && buffer.remove(record)) {
+			size.decrementAndGet();
+			dropped.increment();
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * @return Los fallos descartados desde el principio porque el buffer estaba lleno (o el
+	 *         pipeline, cerrado).
+	 */
+	public long droppedCount() {
+		return dropped.sum();
+	}
+
+	/**
+	 * @return Los fallos entregados al destino desde el principio (contando los agrupados).
+	 */
+	public long deliveredCount() {
+		return delivered.sum();
+	}
+
+	/**
+	 * Deja de aceptar fallos, espera a que el hilo de fondo entregue lo pendiente y termina.
+	 */
+	public void close() {
+		closed = true;
+		if (Thread.currentThread() != shutdownHook) {
+			try {
+				Runtime.getRuntime().removeShutdownHook(shutdownHook);
+			} catch (IllegalStateException e) {
+				// La JVM ya está terminando: el hook se ejecutará (y no hará nada) de todas formas.
+			}
+		}
+		LockSupport.unpark(flusher);
+		try {
+			flusher.join(TimeUnit.SECONDS.toMillis(5));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void runFlusher() {
+		while (!closed) {
+			LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(FLUSH_INTERVAL_MILLIS));
+			flush();
+		}
+		// Última entrega tras close(): lo que se encoló antes de cerrar.
+		flush();
+	}
+
+	/**
+	 * Vacía el buffer, agrupa los fallos iguales conservando el orden de llegada y entrega el lote.
+	 */
+	private void flush() {
+		Map<String, Notification> groups = new LinkedHashMap<>();
+		FailureRecord record;
+		while ((record = buffer.poll()) != null) {
+			size.decrementAndGet();
+			Notification group = groups.get(record.coalescingKey());
+			if (group == null) {
+				groups.put(record.coalescingKey(), new Notification(record));
+			} else {
+				group.occurrences++;
+			}
+		}
+
+		long droppedNow = dropped.sum() - droppedReported;
+		if (groups.isEmpty() && droppedNow == 0) {
+			return;
+		}
+		droppedReported += droppedNow;
+		try {
+			sink.deliver(new ArrayList<>(groups.values()), droppedNow);
+			for (Notification notification : groups.values()) {
+				delivered.add(notification.occurrences);
+			}
+		} catch (Exception ex) {
+			// El destino ha fallado (disco lleno, servidor caído...): el hilo de fondo sigue vivo.
+			ex.printStackTrace();
+		}
+	}
+
+	/**
+	 * Lo mínimo que hay que guardar de un fallo; se crea en el hilo que muere, así que es pequeño.
+	 */
+	public static final class FailureRecord {
+		public final String threadName;
+		public final long threadId;
+		public final String exceptionType;
+		public final String message;
+		// La línea de código donde se lanzó la excepción (el primer elemento de la traza).
+		public final String topFrame;
+		public final long timeMillis;
+
+		FailureRecord(Thread t, Throwable e) {
+			this.threadName = t.getName();
+			this.threadId = t.threadId();
+			this.exceptionType = e.getClass().getName();
+			this.message = e.getMessage();
+			StackTraceElement[] trace = e.getStackTrace();
+			this.topFrame = trace.length > 0 ? trace[0].toString() : "?";
+			this.timeMillis = System.currentTimeMillis();
+		}
+
+		String coalescingKey() {
+			return exceptionType + '|' + message + '|' + topFrame;
+		}
+	}
+
+	/**
+	 * Un grupo de fallos iguales dentro de un lote: el primero que llegó y cuántos hubo.
+	 */
+	public static final class Notification {
+		public final FailureRecord first;
+		public int occurrences = 1;
+
+		Notification(FailureRecord first) {
+			this.first = first;
+		}
+	}
+}
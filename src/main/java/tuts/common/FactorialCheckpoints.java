@@ -0,0 +1,187 @@
+package tuts.common;
+
+import java.math.BigInteger;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Un almacén compartido de factoriales ya calculados (i → i!), para que un cálculo de n! no
+ * tenga que empezar desde 1.
+ *
+ * <h2>¿Qué problema resuelve?</h2>
+ * Cuando se cancela un `FactorialTaskA` o un `FactorialTaskB`, todo lo que llevaba calculado se
+ * pierde. Y si después se pide el factorial de un número cercano (o del mismo), se vuelve a
+ * empezar desde 1 * 2 * 3...
+ *
+ * <h2>¿Cómo funciona?</h2>
+ * <ul>
+ *   <li>Las tareas (ver `CheckpointedFactorialTask`) piden con {@link #nearest(int)} el
+ *       factorial guardado más cercano por debajo de su n, y siguen multiplicando desde ahí.</li>
+ *   <li>Al terminar, o al ser canceladas, dejan con {@link #publish(int, BigInteger)} el último
+ *       factorial que completaron.</li>
+ *   <li>Los factoriales se guardan en un `ConcurrentSkipListMap`, un mapa ordenado y sin locks
+ *       que encuentra "el mayor i ≤ n" directamente.</li>
+ *   <li>Los factoriales ocupan mucho (10^6! son unos 2 MB), así que el almacén está acotado en
+ *       bytes: al pasarse de 'maxBytes', se expulsa el que se usó hace más tiempo (LRU).</li>
+ * </ul>
+ */
+public class FactorialCheckpoints {
+
+	private static final Checkpoint ZERO = new Checkpoint(0, BigInteger.ONE);
+
+	private final ConcurrentSkipListMap<Integer, Slot> checkpoints = new ConcurrentSkipListMap<>();
+	private final long maxBytes;
+	private final AtomicLong bytes = new AtomicLong();
+	private final AtomicBoolean evicting = new AtomicBoolean();
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder published = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	/**
+	 * @param maxBytes Lo que pueden ocupar, como mucho, todos los factoriales guardados juntos.
+	 */
+	public FactorialCheckpoints(long maxBytes) {
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * @return El factorial guardado más cercano por debajo de 'n' (o el de 'n' mismo), o 0! = 1
+	 *         si no hay ninguno.
+	 */
+	public Checkpoint nearest(int n) {
+		Map.Entry<Integer, Slot> entry = checkpoints.floorEntry(n);
+		if (entry == null) {
+			misses.increment();
+			return ZERO;
+		}
+		hits.increment();
+		Slot slot = entry.getValue();
+		slot.lastUsed = System.nanoTime();
+		return slot.checkpoint;
+	}
+
+	/**
+	 * Guarda n! para que otras tareas empiecen desde ahí. Si ya estaba guardado, no hace nada.
+	 */
+	public void publish(int n, BigInteger factorial) {
+		if (n < 2) {
+			return; // 0! y 1! no ahorran nada.
+		}
+		long size = sizeOf(factorial);
+		if (size > maxBytes) {
+			return; // No cabe ni solo.
+		}
+		Slot slot = new Slot(new Checkpoint(n, factorial), size);
+		if (checkpoints.putIfAbsent(n, slot) == null) {
+			published.increment();
+			bytes.addAndGet(size);
+			evict();
+		}
+	}
+
+	public int size() {
+		return checkpoints.size();
+	}
+
+	public long bytes() {
+		return bytes.get();
+	}
+
+	/**
+	 * Expulsa los factoriales usados hace más tiempo hasta volver a 'maxBytes'. Hay pocos
+	 * guardados a la vez (son grandes), así que basta con recorrerlos todos para elegir.
+	 */
+	private void evict() {
+		while (bytes.get() > maxBytes && evicting.compareAndSet(false, true)) {
+			try {
+				while (bytes.get() > maxBytes) {
+					Map.Entry<Integer, Slot> oldest = null;
+					for (Map.Entry<Integer, Slot> entry : checkpoints.entrySet()) {
+						if (oldest == null || entry.getValue().lastUsed - oldest.getValue().lastUsed < 0) {
+							oldest = entry;
+						}
+					}
+					if (oldest == null) {
+						return;
+					}
+					if (checkpoints.remove(oldest.getKey(), oldest.getValue())) {
+						bytes.addAndGet(-oldest.getValue().size);
+						evictions.increment();
+					}
+				}
+			} finally {
+				evicting.set(false);
+			}
+		}
+	}
+
+	private static long sizeOf(BigInteger factorial) {
+		return factorial.bitLength() / 8 + 1;
+	}
+
+	public Stats stats() {
+		return new Stats(this);
+	}
+
+	/**
+	 * Un factorial guardado: n y n!. Los campos son públicos y finales, como en `TaskResult`.
+	 */
+	public static class Checkpoint {
+		public final int n;
+		public final BigInteger factorial;
+
+		public Checkpoint(int n, BigInteger factorial) {
+			this.n = n;
+			this.factorial = factorial;
+		}
+
+		@Override
+		public String toString() {
+			return n + "! (" + factorial.bitLength() + " bits)";
+		}
+	}
+
+	private static final class Slot {
+		final Checkpoint checkpoint;
+		final long size;
+		volatile long lastUsed = System.nanoTime();
+
+		Slot(Checkpoint checkpoint, long size) {
+			this.checkpoint = checkpoint;
+			this.size = size;
+		}
+	}
+
+	/**
+	 * Una foto de los contadores.
+	 */
+	public static class Stats {
+		// Peticiones que encontraron un factorial del que partir.
+		public final long hits;
+		public final long misses;
+		public final long published;
+		public final long evictions;
+		public final int size;
+		public final long bytes;
+
+		private Stats(FactorialCheckpoints store) {
+			this.hits = store.hits.sum();
+			this.misses = store.misses.sum();
+			this.published = store.published.sum();
+			this.evictions = store.evictions.sum();
+			this.size = store.checkpoints.size();
+			this.bytes = store.bytes.get();
+		}
+
+		@Override
+		public String toString() {
+			return "hits=" + hits + " misses=" + misses + " published=" + published + " evictions=" + evictions
+					+ " size=" + size + " bytes=" + bytes;
+		}
+	}
+}
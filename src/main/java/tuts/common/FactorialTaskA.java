@@ -7,6 +7,9 @@ import java.util.concurrent.TimeUnit;
  * Esta clase es una tarea 'Callable' que calcula el factorial de un número.
  * Implementa un mecanismo de cancelación personalizado usando una bandera 'volatile',
  * similar al que vimos en LoopTaskE.
+ * <p>
+ * Ojo: el resultado es un `long`, que se desborda a partir de 20!. `BigFactorialTask` calcula
+ * factoriales de cualquier tamaño.
  */
 public class FactorialTaskA implements Callable<Long> {
 	
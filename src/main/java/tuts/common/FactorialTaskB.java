@@ -7,6 +7,9 @@ import java.util.concurrent.TimeUnit;
  * Esta clase es una versión mejorada de FactorialTaskA.
  * Calcula el factorial de un número y puede ser cancelada, pero utiliza el
  * mecanismo de INTERRUPCIÓN estándar de Java, que es la forma recomendada.
+ * <p>
+ * Igual que en FactorialTaskA, el `long` se desborda pasado 20! (el 30! del tut6 sale
+ * negativo). Para números grandes, ver `BigFactorialTask`.
  */
 public class FactorialTaskB implements Callable<Long> {
 	
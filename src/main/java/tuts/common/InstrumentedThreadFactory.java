@@ -0,0 +1,129 @@
+package tuts.common;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Un "decorador" que envuelve cualquier otra fábrica de hilos (`NamedThreadsFactory`,
+ * `NamedDaemonThreadsFactory`, ...) y lleva la cuenta de la vida de los hilos que crea.
+ *
+ * <h2>¿Para qué sirve?</h2>
+ * Un `newCachedThreadPool` crea hilos cuando llega trabajo y los destruye cuando llevan un rato
+ * (el keep-alive, 60 segundos por defecto) sin hacer nada. Con una carga "en dientes de sierra"
+ * (ráfagas separadas por pausas), si el keep-alive es más corto que las pausas, el pool destruye
+ * todos sus hilos en cada pausa y los vuelve a crear en cada ráfaga. Con esta fábrica se ve:
+ * <ul>
+ *   <li>Cuántos hilos se han creado y a qué ritmo.</li>
+ *   <li>Cuántos están vivos ahora y cuál ha sido el máximo.</li>
+ *   <li>Cuánto vive un hilo de media (si viven muy poco, el pool está "agitándose").</li>
+ *   <li>Cuántos murieron por una excepción no capturada y cuántos terminaron normalmente
+ *       (en un pool, eso significa que expiró su keep-alive o que se apagó el pool).</li>
+ * </ul>
+ *
+ * <h2>¿Cómo funciona?</h2>
+ * El patrón Decorador: la fábrica pide el hilo a la fábrica original, pero antes envuelve la
+ * tarea del hilo con otra que apunta cuándo empieza y cómo termina. Los contadores son
+ * atómicos (`AtomicInteger`, `LongAdder`), así que no hay ningún lock, y {@link #snapshot()}
+ * solo lee unos pocos contadores.
+ */
+public class InstrumentedThreadFactory implements ThreadFactory {
+
+	private final ThreadFactory delegate;
+
+	private final LongAdder created = new LongAdder();
+	private final AtomicInteger live = new AtomicInteger();
+	private final AtomicInteger peakLive = new AtomicInteger();
+	private final LongAdder uncaughtDeaths = new LongAdder();
+	private final LongAdder normalExits = new LongAdder();
+	private final LongAdder totalLifetimeNanos = new LongAdder();
+
+	public InstrumentedThreadFactory(ThreadFactory delegate) {
+		this.delegate = delegate;
+	}
+
+	@Override
+	public Thread newThread(Runnable r) {
+		created.increment();
+		return delegate.newThread(() -> runTracked(r));
+	}
+
+	/**
+	 * Ejecuta la tarea del hilo (en un pool, el bucle que va cogiendo tareas de la cola)
+	 * y registra cómo termina. La excepción, si la hay, sigue su camino hasta el manejador
+	 * de excepciones del hilo, igual que sin el decorador.
+	 */
+	private void runTracked(Runnable r) {
+		long bornAt = System.nanoTime();
+		int nowLive = live.incrementAndGet();
+		// Actualiza el máximo sin locks: solo se reintenta si otro hilo lo cambió a la vez.
+		int peak = peakLive.get();
+		while (nowLive > peak && !peakLive.compareAndSet(peak, nowLive)) {
+			peak = peakLive.get();
+		}
+
+		boolean completedNormally = false;
+		try {
+			r.run();
+			completedNormally = true;
+		} finally {
+			live.decrementAndGet();
+			totalLifetimeNanos.add(System.nanoTime() - bornAt);
+			if (completedNormally) {
+				normalExits.increment();
+			} else {
+				uncaughtDeaths.increment();
+			}
+		}
+	}
+
+	/**
+	 * @return Una foto de los contadores en este momento. Es barata: no bloquea a nadie.
+	 */
+	public Snapshot snapshot() {
+		return new Snapshot(this);
+	}
+
+	/**
+	 * Una foto inmutable de los contadores. Los campos son públicos y finales, como en `TaskResult`.
+	 */
+	public static class Snapshot {
+		public final long takenAtNanos;
+		public final long created;
+		public final int live;
+		public final int peakLive;
+		public final long uncaughtDeaths;
+		// Hilos que terminaron sin excepción: en un pool, por keep-alive o por apagado.
+		public final long normalExits;
+		public final long averageLifetimeMillis;
+
+		private Snapshot(InstrumentedThreadFactory factory) {
+			this.takenAtNanos = System.nanoTime();
+			this.created = factory.created.sum();
+			this.live = factory.live.get();
+			this.peakLive = factory.peakLive.get();
+			this.uncaughtDeaths = factory.uncaughtDeaths.sum();
+			this.normalExits = factory.normalExits.sum();
+			long deaths = uncaughtDeaths + normalExits;
+			this.averageLifetimeMillis = deaths == 0 ? 0
+					: TimeUnit.NANOSECONDS.toMillis(factory.totalLifetimeNanos.sum() / deaths);
+		}
+
+		/**
+		 * @param earlier Una foto anterior de la misma fábrica.
+		 * @return Los hilos creados por segundo entre aquella foto y esta.
+		 */
+		public double creationRatePerSecond(Snapshot earlier) {
+			double seconds = (takenAtNanos - earlier.takenAtNanos) / 1e9;
+			return seconds <= 0 ? 0 : (created - earlier.created) / seconds;
+		}
+
+		@Override
+		public String toString() {
+			return "created=" + created + " live=" + live + " peak=" + peakLive
+					+ " uncaughtDeaths=" + uncaughtDeaths + " normalExits=" + normalExits
+					+ " avgLifetime=" + averageLifetimeMillis + "ms";
+		}
+	}
+}
@@ -0,0 +1,19 @@
+package tuts.common;
+
+/**
+ * La versión de `Callable<Integer>` que devuelve un `int` primitivo.
+ * 
+ * Un `Callable<Integer>` (como `CalculationTaskA`) tiene que "envolver" (boxing) cada resultado
+ * en un objeto `Integer`, que es memoria nueva para cada cálculo. Con millones de cálculos
+ * pequeños por segundo, esa memoria se nota. Este `call()` devuelve el `int` tal cual.
+ * 
+ * Se ejecuta con `PrimitiveCompletionService` o envuelto en un `PrimitiveFutureTask`.
+ */
+@FunctionalInterface
+public interface IntCallable {
+
+	/**
+	 * @return El resultado del cálculo, sin envolver.
+	 */
+	int call() throws Exception;
+}
@@ -0,0 +1,22 @@
+package tuts.common;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Un `Future` cuyo resultado es un `int`: se consulta con {@link #getInt()} sin crear ningún objeto
+ * (un `Future<Integer>` devolvería un `Integer`, un objeto nuevo para casi cada resultado).
+ */
+public interface IntFuture extends PrimitiveFuture {
+
+	/**
+	 * Igual que `Future.get()`: espera a que termine la tarea y devuelve su resultado.
+	 */
+	int getInt() throws InterruptedException, ExecutionException;
+
+	/**
+	 * Igual que `Future.get(timeout, unit)`.
+	 */
+	int getInt(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException;
+}
@@ -0,0 +1,54 @@
+package tuts.common;
+
+/**
+ * La versión de `TaskResult<S, Integer>` con el resultado como `int` primitivo.
+ * 
+ * `CalculationTaskB` devuelve un `TaskResult<String, Integer>`: dos objetos por resultado
+ * (el `TaskResult` y el `Integer` que envuelve la suma). Con esta clase solo queda uno.
+ * Igual que `TaskResult`, es inmutable.
+ * 
+ * @param <S> El tipo de dato para el identificador de la tarea.
+ */
+public class IntTaskResult<S> {
+
+	public final S taskId;
+	public final int result;
+
+	public IntTaskResult(S taskId, int result) {
+		this.taskId = taskId;
+		this.result = result;
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int hash = 1;
+		hash = prime * hash + Integer.hashCode(result);
+		hash = prime * hash + ((taskId == null) ? 0 : taskId.hashCode());
+		return hash;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		IntTaskResult<?> other = (IntTaskResult<?>) obj;
+		if (result != other.result)
+			return false;
+		if (taskId == null) {
+			if (other.taskId != null)
+				return false;
+		} else if (!taskId.equals(other.taskId))
+			return false;
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return "~~~~~IntTaskResult [taskId=" + taskId + ", result=" + result + "]~~~~~";
+	}
+}
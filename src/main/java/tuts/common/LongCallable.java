@@ -0,0 +1,15 @@
+package tuts.common;
+
+/**
+ * La versión de `Callable<Long>` que devuelve un `long` primitivo, para tareas como
+ * `FactorialTaskA` y `FactorialTaskB`, que hoy devuelven un `Long` (un objeto nuevo por
+ * resultado). Ver `IntCallable`.
+ */
+@FunctionalInterface
+public interface LongCallable {
+
+	/**
+	 * @return El resultado del cálculo, sin envolver.
+	 */
+	long call() throws Exception;
+}
@@ -0,0 +1,21 @@
+package tuts.common;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Un `Future` cuyo resultado es un `long`: se consulta con {@link #getLong()} sin crear ningún objeto.
+ */
+public interface LongFuture extends PrimitiveFuture {
+
+	/**
+	 * Igual que `Future.get()`: espera a que termine la tarea y devuelve su resultado.
+	 */
+	long getLong() throws InterruptedException, ExecutionException;
+
+	/**
+	 * Igual que `Future.get(timeout, unit)`.
+	 */
+	long getLong(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException;
+}
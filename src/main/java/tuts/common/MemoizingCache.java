@@ -0,0 +1,313 @@
+package tuts.common;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Recuerda los resultados de tareas "idempotentes" (las que, con los mismos datos de entrada,
+ * siempre dan el mismo resultado, como `CalculationTaskA` o `CalculationTaskB`), para no
+ * volver a calcularlos.
+ *
+ * <h2>¿Qué problema resuelve?</h2>
+ * Si se envían muchas veces `new CalculationTaskA(2, 3, 2000)`, cada copia vuelve a esperar sus
+ * 2 segundos para volver a sumar 2 + 3. Y si llegan a la vez, se calculan todas a la vez.
+ *
+ * <h2>¿Cómo funciona?</h2>
+ * <ul>
+ *   <li>Cada cálculo se identifica con una clave (por ejemplo, un `TaskKey`) y se guarda su
+ *       `CompletableFuture` en un `ConcurrentHashMap`.</li>
+ *   <li>Si la clave no está (un fallo, "miss"), se lanza la tarea en el `Executor`. Si ya está
+ *       terminada (un acierto, "hit"), se devuelve su resultado. Si está calculándose (una
+ *       "coalescencia"), NO se lanza otra vez: el que llega espera al mismo cálculo.</li>
+ *   <li>Los resultados caducan 'ttl' después de calcularse. Si una tarea falla, su resultado
+ *       no se guarda: la siguiente petición lo vuelve a intentar.</li>
+ *   <li>La caché está acotada a 'maxSize' resultados. Para elegir a cuál expulsar se usa el
+ *       algoritmo CLOCK, una aproximación de LRU sin locks: los resultados hacen cola por
+ *       orden de llegada y cada acierto les marca un bit de "usado". Al expulsar, el de la
+ *       cabeza de la cola se va si no tiene el bit; si lo tiene, se le quita y vuelve al
+ *       final (una "segunda oportunidad"). Lo que aún se está calculando nunca se expulsa:
+ *       quien llegase después lo volvería a lanzar. Si todo está calculándose, la caché se
+ *       pasa de 'maxSize' hasta que termine algún cálculo.</li>
+ * </ul>
+ * No hay ningún lock global: claves distintas no se esperan nunca entre sí. Solo un hilo a la
+ * vez hace las expulsiones, y los demás no le esperan.
+ *
+ * @param <K> El tipo de la clave (tiene que implementar bien `equals` y `hashCode`).
+ * @param <V> El tipo del resultado.
+ */
+public class MemoizingCache<K, V> {
+
+	private final ConcurrentHashMap<K, Entry<K, V>> entries = new ConcurrentHashMap<>();
+	// Orden de llegada, para el algoritmo CLOCK. Puede tener entradas ya retiradas del mapa.
+	private final ConcurrentLinkedQueue<Entry<K, V>> clock = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger size = new AtomicInteger();
+	private final AtomicInteger queued = new AtomicInteger();
+	private final AtomicBoolean evicting = new AtomicBoolean();
+
+	private final Executor executor;
+	private final int maxSize;
+	private final long ttlNanos;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder coalesced = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+	private final LongAdder expirations = new LongAdder();
+
+	/**
+	 * @param executor Donde se ejecutan las tareas que no están en la caché.
+	 * @param maxSize El máximo de resultados guardados a la vez.
+	 * @param ttl Cuánto tiempo, desde que se calcula, vale un resultado.
+	 */
+	public MemoizingCache(Executor executor, int maxSize, long ttl, TimeUnit unit) {
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException("maxSize tiene que ser positivo: " + maxSize);
+		}
+		this.executor = executor;
+		this.maxSize = maxSize;
+		this.ttlNanos = unit.toNanos(ttl);
+	}
+
+	/**
+	 * Devuelve el resultado de 'task', calculándolo solo si no está en la caché ni se está
+	 * calculando ya.
+	 *
+	 * @param key La identidad del cálculo, por ejemplo {@code TaskKey.of(CalculationTaskA.class, a, b)}.
+	 * @param task La tarea que calcula el resultado si hace falta.
+	 * @return El resultado, cuando llegue. Cada llamada recibe su propia "copia" del
+	 *         `CompletableFuture` compartido: si alguien la cancela, no afecta a los demás.
+	 */
+	public CompletableFuture<V> get(K key, Callable<? extends V> task) {
+		for (;;) {
+			Entry<K, V> entry = entries.get(key);
+			if (entry == null) {
+				Entry<K, V> fresh = new Entry<>(key);
+				entry = entries.putIfAbsent(key, fresh);
+				if (entry == null) {
+					misses.increment();
+					added(fresh);
+					load(fresh, task);
+					return fresh.future.copy();
+				}
+			}
+			if (isExpired(entry, System.nanoTime())) {
+				// Se retira y se vuelve a buscar; si otro hilo se adelanta, se usa su entrada.
+				if (entries.remove(key, entry)) {
+					removed(entry);
+					expirations.increment();
+				}
+				continue;
+			}
+			if (entry.future.isDone()) {
+				hits.increment();
+			} else {
+				coalesced.increment();
+			}
+			entry.referenced = true;
+			return entry.future.copy();
+		}
+	}
+
+	/**
+	 * @return El resultado guardado para 'key', o null si no está, ha caducado o aún no ha terminado.
+	 */
+	public V getIfPresent(K key) {
+		Entry<K, V> entry = entries.get(key);
+		if (entry == null || !entry.future.isDone() || entry.future.isCompletedExceptionally()
+				|| isExpired(entry, System.nanoTime())) {
+			return null;
+		}
+		entry.referenced = true;
+		return entry.future.join();
+	}
+
+	/**
+	 * Olvida el resultado de 'key' (si se está calculando, quien ya lo espera lo recibirá igual).
+	 */
+	public void invalidate(K key) {
+		Entry<K, V> entry = entries.remove(key);
+		if (entry != null) {
+			removed(entry);
+		}
+	}
+
+	public int size() {
+		return size.get();
+	}
+
+	/**
+	 * Lo que se está calculando no caduca: el tiempo cuenta desde que termina.
+	 */
+	private boolean isExpired(Entry<K, V> entry, long now) {
+		return entry.future.isDone() && now - entry.completedAt >= ttlNanos;
+	}
+
+	private void load(Entry<K, V> entry, Callable<? extends V> task) {
+		try {
+			executor.execute(() -> {
+				try {
+					V value = task.call();
+					entry.completedAt = System.nanoTime();
+					entry.future.complete(value);
+					// Mientras se calculaba no se podía expulsar: puede que ahora sobre.
+					evict();
+				} catch (Throwable t) {
+					fail(entry, t);
+				}
+			});
+		} catch (RuntimeException e) {
+			// El Executor ha rechazado la tarea.
+			fail(entry, e);
+		}
+	}
+
+	/**
+	 * Un fallo no se guarda: se retira la entrada (antes de avisar, para que quien reintente
+	 * lance un cálculo nuevo) y se pasa la excepción a quienes esperaban.
+	 */
+	private void fail(Entry<K, V> entry, Throwable t) {
+		if (entries.remove(entry.key, entry)) {
+			removed(entry);
+		}
+		entry.future.completeExceptionally(t);
+	}
+
+	private void added(Entry<K, V> entry) {
+		size.incrementAndGet();
+		clock.offer(entry);
+		queued.incrementAndGet();
+		evict();
+	}
+
+	private void removed(Entry<K, V> entry) {
+		entry.removed = true;
+		size.decrementAndGet();
+	}
+
+	/**
+	 * Recorre la cola CLOCK hasta que la caché vuelve a su tamaño. De paso, descarta los nodos de
+	 * entradas ya retiradas (por caducidad, fallo o invalidate), que si no harían crecer la cola.
+	 */
+	private void evict() {
+		// Si ya hay otro hilo expulsando, no se le espera. Al terminar, se vuelve a comprobar por si
+		// alguien añadió entradas mientras tanto y se fue sin expulsar.
+		while (overCapacity() && evicting.compareAndSet(false, true)) {
+			boolean stuck;
+			try {
+				stuck = !evictWhileOverCapacity();
+			} finally {
+				evicting.set(false);
+			}
+			if (stuck) {
+				// Solo quedan cálculos en curso: se volverá a intentar cuando termine alguno.
+				return;
+			}
+		}
+	}
+
+	private boolean overCapacity() {
+		return size.get() > maxSize || queued.get() > 2 * maxSize;
+	}
+
+	/**
+	 * @return true si la caché ha vuelto a su tamaño; false si no se puede seguir: tras dos
+	 *         vueltas a la cola (la primera puede solo quitar bits de "usado"), lo que queda se
+	 *         está calculando.
+	 */
+	private boolean evictWhileOverCapacity() {
+		int budget = 2 * queued.get();
+		while (overCapacity()) {
+			if (budget-- <= 0) {
+				return false;
+			}
+			Entry<K, V> candidate = clock.poll();
+			if (candidate == null) {
+				// Quien acaba de añadir una entrada aún no la ha encolado: él volverá a expulsar.
+				return false;
+			}
+			queued.decrementAndGet();
+			if (candidate.removed) {
+				continue;
+			}
+			if (!candidate.future.isDone()) {
+				// En curso: no se puede expulsar; vuelve al final sin gastar su bit de "usado".
+				clock.offer(candidate);
+				queued.incrementAndGet();
+			} else if (candidate.referenced || size.get() <= maxSize) {
+				// Segunda oportunidad (o solo se estaba limpiando la cola): vuelve al final.
+				candidate.referenced = false;
+				clock.offer(candidate);
+				queued.incrementAndGet();
+			} else if (entries.remove(candidate.key, candidate)) {
+				removed(candidate);
+				evictions.increment();
+			}
+		}
+		return true;
+	}
+
+	public Stats stats() {
+		return new Stats(this);
+	}
+
+	/**
+	 * Un resultado (o un cálculo en curso) guardado en la caché.
+	 */
+	private static final class Entry<K, V> {
+		final K key;
+		final CompletableFuture<V> future = new CompletableFuture<>();
+		// Se escribe antes de completar 'future', así que es visible para quien lo vea terminado.
+		volatile long completedAt;
+		// El bit de "usado" del algoritmo CLOCK.
+		volatile boolean referenced;
+		volatile boolean removed;
+
+		Entry(K key) {
+			this.key = key;
+		}
+	}
+
+	/**
+	 * Una foto de los contadores. Los campos son públicos y finales, como en `TaskResult`.
+	 */
+	public static class Stats {
+		public final long hits;
+		public final long misses;
+		// Peticiones que encontraron su cálculo en curso y se unieron a él en lugar de lanzar otro.
+		public final long coalesced;
+		public final long evictions;
+		public final long expirations;
+		public final int size;
+
+		private Stats(MemoizingCache<?, ?> cache) {
+			this.hits = cache.hits.sum();
+			this.misses = cache.misses.sum();
+			this.coalesced = cache.coalesced.sum();
+			this.evictions = cache.evictions.sum();
+			this.expirations = cache.expirations.sum();
+			this.size = cache.size.get();
+		}
+
+		/**
+		 * @return La fracción de peticiones que no lanzaron ningún cálculo.
+		 */
+		public double hitRate() {
+			long requests = hits + misses + coalesced;
+			return requests == 0 ? 0 : (hits + coalesced) / (double) requests;
+		}
+
+		@Override
+		public String toString() {
+			return "hits=" + hits + " misses=" + misses + " coalesced=" + coalesced + " evictions=" + evictions
+					+ " expirations=" + expirations + " size=" + size
+					+ String.format(" hitRate=%.1f%%", hitRate() * 100);
+		}
+	}
+}
@@ -0,0 +1,107 @@
+package tuts.common;
+
+import java.lang.Thread.UncaughtExceptionHandler;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Una alternativa a `NamedThreadsFactory` construida sobre `Thread.Builder` (Java 21).
+ *
+ * <h2>¿Qué problemas resuelve?</h2>
+ * `NamedThreadsFactory` es perfecta para aprender, pero tiene tres limitaciones:
+ * <ul>
+ *   <li>Su contador `static int count` se incrementa con `++count`, que NO es atómico. Si dos
+ *       hilos piden un hilo nuevo a la vez (algo normal en un `newCachedThreadPool`), los dos
+ *       pueden leer el mismo valor y crear dos hilos con el mismo nombre.</li>
+ *   <li>Escribe en `System.out` cada vez que crea un hilo. La consola es lenta y está
+ *       sincronizada, así que esa línea cuesta más que crear el propio hilo.</li>
+ *   <li>Siempre crea hilos de plataforma (los hilos "normales" del sistema operativo).</li>
+ * </ul>
+ *
+ * <h2>¿Cómo funciona?</h2>
+ * La fábrica se configura UNA vez con un `Thread.Builder` y le pide su `factory()`. La fábrica
+ * que devuelve el JDK es segura entre hilos y numera los hilos con un contador atómico, sin
+ * locks: nunca habrá dos hilos con el mismo nombre. El mensaje por consola es opcional.
+ *
+ * <h2>¿Cómo se usa?</h2>
+ * <pre>
+ * ExecutorService execService = Executors.newCachedThreadPool(NamedBuilderThreadsFactory.ofPlatform("PoolWorker-"));
+ * ExecutorService virtualService = Executors.newThreadPerTaskExecutor(NamedBuilderThreadsFactory.ofVirtual("VirtualWorker-"));
+ * </pre>
+ */
+public class NamedBuilderThreadsFactory implements ThreadFactory {
+
+	// La fábrica del JDK que realmente crea los hilos (segura entre hilos, sin locks).
+	private final ThreadFactory delegate;
+
+	// Si es true, se imprime un mensaje como el de `NamedThreadsFactory` por cada hilo creado.
+	private final boolean logCreation;
+
+	private NamedBuilderThreadsFactory(Thread.Builder builder, String namePrefix,
+			UncaughtExceptionHandler handler, boolean logCreation) {
+		builder.name(namePrefix, 1);
+		if (handler != null) {
+			builder.uncaughtExceptionHandler(handler);
+		}
+		this.delegate = builder.factory();
+		this.logCreation = logCreation;
+	}
+
+	/**
+	 * Crea una fábrica de hilos de plataforma con la configuración por defecto:
+	 * hilos de usuario, tamaño de pila por defecto, sin manejador y sin mensajes por consola.
+	 *
+	 * @param namePrefix El prefijo de los nombres (los hilos se llamarán prefijo + 1, 2, 3...).
+	 */
+	public static NamedBuilderThreadsFactory ofPlatform(String namePrefix) {
+		return ofPlatform(namePrefix, 0, false, null, false);
+	}
+
+	/**
+	 * Crea una fábrica de hilos de plataforma totalmente configurada.
+	 *
+	 * @param namePrefix El prefijo de los nombres.
+	 * @param stackSize El tamaño de pila en bytes, o 0 para usar el de la JVM.
+	 * @param daemon Si es true, los hilos serán demonio (ver `NamedDaemonThreadsFactory`).
+	 * @param handler El manejador de excepciones no capturadas, o null para no asignar ninguno.
+	 * @param logCreation Si es true, se imprime un mensaje por cada hilo creado.
+	 */
+	public static NamedBuilderThreadsFactory ofPlatform(String namePrefix, long stackSize, boolean daemon,
+			UncaughtExceptionHandler handler, boolean logCreation) {
+		Thread.Builder.OfPlatform builder = Thread.ofPlatform().daemon(daemon);
+		if (stackSize > 0) {
+			builder.stackSize(stackSize);
+		}
+		return new NamedBuilderThreadsFactory(builder, namePrefix, handler, logCreation);
+	}
+
+	/**
+	 * Crea una fábrica de hilos virtuales, sin manejador y sin mensajes por consola.
+	 *
+	 * @param namePrefix El prefijo de los nombres.
+	 */
+	public static NamedBuilderThreadsFactory ofVirtual(String namePrefix) {
+		return ofVirtual(namePrefix, null, false);
+	}
+
+	/**
+	 * Crea una fábrica de hilos virtuales. Los hilos virtuales siempre son demonio y su pila
+	 * crece según la necesitan, así que no tiene sentido configurar ninguna de las dos cosas.
+	 *
+	 * @param namePrefix El prefijo de los nombres.
+	 * @param handler El manejador de excepciones no capturadas, o null para no asignar ninguno.
+	 * @param logCreation Si es true, se imprime un mensaje por cada hilo creado.
+	 */
+	public static NamedBuilderThreadsFactory ofVirtual(String namePrefix, UncaughtExceptionHandler handler,
+			boolean logCreation) {
+		return new NamedBuilderThreadsFactory(Thread.ofVirtual(), namePrefix, handler, logCreation);
+	}
+
+	@Override
+	public Thread newThread(Runnable r) {
+		Thread t = delegate.newThread(r);
+		if (logCreation) {
+			System.out.println("CREATING new thread: '" + t.getName() + "'");
+		}
+		return t;
+	}
+}
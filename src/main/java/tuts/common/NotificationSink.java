@@ -0,0 +1,87 @@
+package tuts.common;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * El destino final de las notificaciones de fallos de un `ExceptionReportPipeline`
+ * (un email, un fichero, un sistema de monitorización...).
+ *
+ * Es otro ejemplo del patrón "Strategy": el pipeline no sabe ni le importa cómo se entrega
+ * la notificación, solo le pasa el lote al destino que le hayan configurado.
+ *
+ * Solo lo llama el hilo de fondo del pipeline, nunca el hilo que está muriendo, así que puede
+ * tardar lo que necesite (escribir en disco, esperar a un servidor de correo...).
+ */
+public interface NotificationSink {
+
+	/**
+	 * Entrega un lote de notificaciones.
+	 *
+	 * @param batch Los fallos agrupados: cada notificación puede representar varios fallos iguales.
+	 * @param dropped Fallos descartados desde el lote anterior porque el buffer estaba lleno.
+	 */
+	void deliver(List<ExceptionReportPipeline.Notification> batch, long dropped) throws IOException;
+
+	/**
+	 * @return Un destino que imprime por consola la simulación de email original de
+	 *         `ThreadExceptionNotifier`, una por cada grupo de fallos.
+	 */
+	static NotificationSink console() {
+		return (batch, dropped) -> {
+			StringBuilder out = new StringBuilder();
+			for (ExceptionReportPipeline.Notification notification : batch) {
+				ExceptionReportPipeline.FailureRecord first = notification.first;
+				out.append("--- SIMULACIÓN DE ENVÍO DE EMAIL ---\n");
+				out.append("Destinatario: admin@my-app.com\n");
+				out.append("Asunto: ERROR CRÍTICO: El hilo '").append(first.threadName).append("' ha fallado");
+				if (notification.occurrences > 1) {
+					out.append(" (y ").append(notification.occurrences - 1).append(" fallos iguales más)");
+				}
+				out.append("\n");
+				out.append("Cuerpo del mensaje (resumen): \n");
+				out.append("Un error crítico ha ocurrido en la aplicación.\n\n");
+				out.append("Detalles del Hilo:\n");
+				out.append("  Nombre: ").append(first.threadName).append("\n");
+				out.append("  ID: ").append(first.threadId).append("\n\n");
+				out.append("Detalles del Error:\n");
+				out.append("  Tipo: ").append(first.exceptionType).append("\n");
+				out.append("  Mensaje: ").append(first.message).append("\n");
+				out.append("  Origen: ").append(first.topFrame).append("\n");
+				out.append("------------------------------------\n");
+			}
+			if (dropped > 0) {
+				out.append("### ").append(dropped).append(" fallos descartados: el buffer de notificaciones estaba lleno ###\n");
+			}
+			// Una sola escritura por lote, en lugar de una por línea.
+			System.out.print(out);
+		};
+	}
+
+	/**
+	 * @param file El fichero al que se añade una línea por cada grupo de fallos.
+	 * @return Un destino que escribe las notificaciones en un fichero local.
+	 */
+	static NotificationSink toFile(Path file) {
+		return (batch, dropped) -> {
+			try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+					StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+				for (ExceptionReportPipeline.Notification notification : batch) {
+					ExceptionReportPipeline.FailureRecord first = notification.first;
+					writer.write(first.timeMillis + " x" + notification.occurrences + " [" + first.threadName + "] "
+							+ first.exceptionType + ": " + first.message + " at " + first.topFrame);
+					writer.newLine();
+				}
+				if (dropped > 0) {
+					writer.write("DROPPED " + dropped);
+					writer.newLine();
+				}
+			}
+		};
+	}
+}
@@ -0,0 +1,86 @@
+package tuts.common;
+
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+/**
+ * La versión de `ExecutorCompletionService` para tareas que devuelven primitivos
+ * (`IntCallable`, `LongCallable`, `DoubleCallable`).
+ *
+ * Funciona igual que el del tut3: se envían tareas y se recogen en el orden en que terminan,
+ * no en el que se enviaron. Las diferencias están en la memoria por tarea:
+ * <ul>
+ *   <li>El resultado no se envuelve en un `Integer`/`Long`/`Double`.</li>
+ *   <li>`ExecutorCompletionService` crea un `FutureTask` y además un segundo objeto que lo
+ *       envuelve para añadirlo a la cola al terminar. Aquí el propio `PrimitiveFutureTask`
+ *       se añade a la cola, así que sobra ese segundo objeto.</li>
+ * </ul>
+ * Como `ExecutorCompletionService<V>`, cada servicio es de un solo tipo de resultado: se crea
+ * con {@link #ofInt(Executor)}, {@link #ofLong(Executor)} u {@link #ofDouble(Executor)}, y
+ * `take()` y `poll()` devuelven directamente el `Future` de ese tipo, sin conversiones.
+ *
+ * @param <C> El tipo de las tareas (`IntCallable`, `LongCallable` o `DoubleCallable`).
+ * @param <F> El tipo de sus resultados (`IntFuture`, `LongFuture` o `DoubleFuture`).
+ */
+public class PrimitiveCompletionService<C, F extends PrimitiveFuture> {
+
+	private final Executor executor;
+	private final Class<F> futureType;
+	// Crea la tarea de la subclase que corresponde, apuntada a la cola de terminadas.
+	private final BiFunction<C, Queue<PrimitiveFutureTask>, PrimitiveFutureTask> newTask;
+	private final BlockingQueue<PrimitiveFutureTask> completed = new LinkedBlockingQueue<>();
+
+	private PrimitiveCompletionService(Executor executor, Class<F> futureType,
+			BiFunction<C, Queue<PrimitiveFutureTask>, PrimitiveFutureTask> newTask) {
+		this.executor = executor;
+		this.futureType = futureType;
+		this.newTask = newTask;
+	}
+
+	public static PrimitiveCompletionService<IntCallable, IntFuture> ofInt(Executor executor) {
+		return new PrimitiveCompletionService<>(executor, IntFuture.class, PrimitiveFutureTask.OfInt::new);
+	}
+
+	public static PrimitiveCompletionService<LongCallable, LongFuture> ofLong(Executor executor) {
+		return new PrimitiveCompletionService<>(executor, LongFuture.class, PrimitiveFutureTask.OfLong::new);
+	}
+
+	public static PrimitiveCompletionService<DoubleCallable, DoubleFuture> ofDouble(Executor executor) {
+		return new PrimitiveCompletionService<>(executor, DoubleFuture.class, PrimitiveFutureTask.OfDouble::new);
+	}
+
+	/**
+	 * Envía una tarea al `Executor`.
+	 * @return Su `Future`; cuando termine, también lo devolverán `take()` o `poll()`.
+	 */
+	public F submit(C task) {
+		PrimitiveFutureTask future = newTask.apply(task, completed);
+		executor.execute(future);
+		return futureType.cast(future);
+	}
+
+	/**
+	 * Espera a que termine alguna tarea y la devuelve.
+	 */
+	public F take() throws InterruptedException {
+		return futureType.cast(completed.take());
+	}
+
+	/**
+	 * @return Una tarea terminada, o null si no hay ninguna.
+	 */
+	public F poll() {
+		return futureType.cast(completed.poll());
+	}
+
+	/**
+	 * @return Una tarea terminada, o null si no termina ninguna antes de que se agote el tiempo.
+	 */
+	public F poll(long timeout, TimeUnit unit) throws InterruptedException {
+		return futureType.cast(completed.poll(timeout, unit));
+	}
+}
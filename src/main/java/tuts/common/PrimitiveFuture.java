@@ -0,0 +1,14 @@
+package tuts.common;
+
+/**
+ * Lo común a `IntFuture`, `LongFuture` y `DoubleFuture`: la parte de `Future` que no depende
+ * del tipo del resultado. Cada una añade su propio `get` que devuelve el primitivo sin envolver.
+ */
+public interface PrimitiveFuture {
+
+	boolean cancel(boolean mayInterruptIfRunning);
+
+	boolean isCancelled();
+
+	boolean isDone();
+}
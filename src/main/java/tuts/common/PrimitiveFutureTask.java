@@ -0,0 +1,309 @@
+package tuts.common;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Un `FutureTask` para tareas que devuelven un `int`, un `long` o un `double`, sin envolver
+ * el resultado en un objeto.
+ *
+ * <h2>¿Cómo evita el "boxing"?</h2>
+ * `FutureTask<Integer>` guarda el resultado en un campo de tipo `Object`, así que cada
+ * resultado es un `Integer` nuevo (salvo los pequeños, de -128 a 127, que la JVM reutiliza).
+ * Esta clase guarda el resultado en un campo `long` (los `int` caben, y los `double` se
+ * guardan con sus mismos bits usando `Double.doubleToRawLongBits`), y lo devuelve con
+ * `getInt()`, `getLong()` o `getDouble()` según el tipo de la tarea.
+ *
+ * <h2>¿Cómo funciona?</h2>
+ * El estado (NEW, NORMAL, EXCEPTIONAL, CANCELLED...) se cambia con CAS, como en `FutureTask`.
+ * El resultado se escribe ANTES de publicar el estado NORMAL, y se lee DESPUÉS de ver ese
+ * estado, así que quien lo lee siempre ve el valor correcto. Solo quien tiene que esperar usa
+ * el monitor de la tarea (wait/notifyAll); si nadie espera, completar la tarea no toca ningún lock.
+ *
+ * Hay una subclase por tipo de resultado ({@link OfInt}, {@link OfLong}, {@link OfDouble}),
+ * cada una con solo el `get` de su tipo: pedirle un `getDouble()` a una tarea de `int` no
+ * compila. Se crean con {@link #ofInt(IntCallable)}, {@link #ofLong(LongCallable)} u
+ * {@link #ofDouble(DoubleCallable)} y se ejecutan con cualquier `Executor`, como un `Runnable`.
+ */
+public abstract class PrimitiveFutureTask implements Runnable, PrimitiveFuture {
+
+	private static final int NEW = 0;
+	private static final int NORMAL = 1;
+	private static final int EXCEPTIONAL = 2;
+	private static final int CANCELLED = 3;
+	// Se ha pedido cancel(true) y se está interrumpiendo al hilo que ejecuta la tarea.
+	private static final int INTERRUPTING = 4;
+	// Cancelada con cancel(true), que llegó a interrumpir al hilo que la ejecutaba.
+	private static final int INTERRUPTED = 5;
+
+	private static final VarHandle STATE;
+	private static final VarHandle RUNNER;
+
+	static {
+		try {
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+			STATE = lookup.findVarHandle(PrimitiveFutureTask.class, "state", int.class);
+			RUNNER = lookup.findVarHandle(PrimitiveFutureTask.class, "runner", Thread.class);
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	// Si no es null, la tarea se añade a esta cola al terminar (ver PrimitiveCompletionService).
+	private final Queue<PrimitiveFutureTask> completionQueue;
+
+	private volatile int state = NEW;
+	private volatile Thread runner;
+	// Hay algún hilo esperando en el monitor: solo entonces hay que despertarlo.
+	private volatile boolean hasWaiters;
+	// El resultado (int, long o los bits del double). Se publica con la escritura de 'state'.
+	private long bits;
+	private Throwable failure;
+
+	PrimitiveFutureTask(Queue<PrimitiveFutureTask> completionQueue) {
+		this.completionQueue = completionQueue;
+	}
+
+	public static OfInt ofInt(IntCallable task) {
+		return new OfInt(task, null);
+	}
+
+	public static OfLong ofLong(LongCallable task) {
+		return new OfLong(task, null);
+	}
+
+	public static OfDouble ofDouble(DoubleCallable task) {
+		return new OfDouble(task, null);
+	}
+
+	@Override
+	public void run() {
+		// Como en `FutureTask`: solo un hilo puede ejecutar la tarea, y nunca si ya ha terminado.
+		if (state != NEW || !RUNNER.compareAndSet(this, null, Thread.currentThread())) {
+			return;
+		}
+		try {
+			if (state != NEW) {
+				return;
+			}
+			long result;
+			try {
+				result = compute();
+			} catch (Throwable t) {
+				failure = t;
+				finish(EXCEPTIONAL);
+				return;
+			}
+			bits = result;
+			finish(NORMAL);
+		} finally {
+			runner = null;
+			// Si un cancel(true) está interrumpiendo a este hilo, se espera a que acabe. Si llegó
+			// a interrumpirlo (aunque ya hubiera acabado antes), se borra la interrupción, para que
+			// no le llegue a la siguiente tarea del hilo.
+			while (state == INTERRUPTING) {
+				Thread.yield();
+			}
+			if (state == INTERRUPTED) {
+				Thread.interrupted();
+			}
+		}
+	}
+
+	/**
+	 * Ejecuta la tarea y devuelve su resultado como `long` (los `double`, con sus mismos bits).
+	 */
+	abstract long compute() throws Exception;
+
+	@Override
+	public boolean cancel(boolean mayInterruptIfRunning) {
+		if (!STATE.compareAndSet(this, NEW, mayInterruptIfRunning ? INTERRUPTING : CANCELLED)) {
+			return false;
+		}
+		if (mayInterruptIfRunning) {
+			Thread t = runner;
+			if (t != null) {
+				t.interrupt();
+			}
+			state = t != null ? INTERRUPTED : CANCELLED;
+		}
+		completed();
+		return true;
+	}
+
+	@Override
+	public boolean isCancelled() {
+		return state >= CANCELLED;
+	}
+
+	@Override
+	public boolean isDone() {
+		return state != NEW;
+	}
+
+	/**
+	 * Espera a que termine la tarea.
+	 * @return El resultado tal como lo guardó {@link #compute()}.
+	 */
+	long getBits() throws InterruptedException, ExecutionException {
+		return report(awaitDone(0, false));
+	}
+
+	long getBits(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+		return report(awaitTimed(unit.toNanos(timeout)));
+	}
+
+	/**
+	 * Publica el estado final (si nadie ha cancelado antes la tarea) y avisa a quien espere.
+	 */
+	private void finish(int finalState) {
+		if (STATE.compareAndSet(this, NEW, finalState)) {
+			completed();
+		}
+	}
+
+	private void completed() {
+		if (hasWaiters) {
+			synchronized (this) {
+				notifyAll();
+			}
+		}
+		if (completionQueue != null) {
+			completionQueue.add(this);
+		}
+	}
+
+	private int awaitTimed(long nanos) throws InterruptedException, TimeoutException {
+		int s = awaitDone(nanos, true);
+		if (s == NEW || s == INTERRUPTING) {
+			throw new TimeoutException();
+		}
+		return s;
+	}
+
+	/**
+	 * @return El estado de la tarea, esperando a que termine si hace falta. Si 'timed' y se
+	 *         agota el tiempo, devuelve el estado sin terminar.
+	 */
+	private int awaitDone(long nanos, boolean timed) throws InterruptedException {
+		int s = state;
+		if (s != NEW && s != INTERRUPTING) {
+			return s;
+		}
+		long deadline = System.nanoTime() + nanos;
+		synchronized (this) {
+			hasWaiters = true;
+			// El estado se vuelve a leer DESPUÉS de apuntarse como esperando: si la tarea terminó
+			// justo antes, aquí ya se ve; si termina después, verá 'hasWaiters' y despertará.
+			while ((s = state) == NEW || s == INTERRUPTING) {
+				if (!timed) {
+					wait();
+				} else {
+					long remaining = deadline - System.nanoTime();
+					if (remaining <= 0) {
+						return s;
+					}
+					TimeUnit.NANOSECONDS.timedWait(this, remaining);
+				}
+			}
+		}
+		return s;
+	}
+
+	private long report(int s) throws ExecutionException {
+		if (s == NORMAL) {
+			return bits;
+		}
+		if (s == EXCEPTIONAL) {
+			throw new ExecutionException(failure);
+		}
+		throw new CancellationException();
+	}
+
+	/**
+	 * Una tarea que devuelve un `int`.
+	 */
+	public static final class OfInt extends PrimitiveFutureTask implements IntFuture {
+		private final IntCallable task;
+
+		OfInt(IntCallable task, Queue<PrimitiveFutureTask> completionQueue) {
+			super(completionQueue);
+			this.task = task;
+		}
+
+		@Override
+		long compute() throws Exception {
+			return task.call();
+		}
+
+		@Override
+		public int getInt() throws InterruptedException, ExecutionException {
+			return (int) getBits();
+		}
+
+		@Override
+		public int getInt(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+			return (int) getBits(timeout, unit);
+		}
+	}
+
+	/**
+	 * Una tarea que devuelve un `long`.
+	 */
+	public static final class OfLong extends PrimitiveFutureTask implements LongFuture {
+		private final LongCallable task;
+
+		OfLong(LongCallable task, Queue<PrimitiveFutureTask> completionQueue) {
+			super(completionQueue);
+			this.task = task;
+		}
+
+		@Override
+		long compute() throws Exception {
+			return task.call();
+		}
+
+		@Override
+		public long getLong() throws InterruptedException, ExecutionException {
+			return getBits();
+		}
+
+		@Override
+		public long getLong(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+			return getBits(timeout, unit);
+		}
+	}
+
+	/**
+	 * Una tarea que devuelve un `double`, guardado con sus mismos bits en el `long` del resultado.
+	 */
+	public static final class OfDouble extends PrimitiveFutureTask implements DoubleFuture {
+		private final DoubleCallable task;
+
+		OfDouble(DoubleCallable task, Queue<PrimitiveFutureTask> completionQueue) {
+			super(completionQueue);
+			this.task = task;
+		}
+
+		@Override
+		long compute() throws Exception {
+			return Double.doubleToRawLongBits(task.call());
+		}
+
+		@Override
+		public double getDouble() throws InterruptedException, ExecutionException {
+			return Double.longBitsToDouble(getBits());
+		}
+
+		@Override
+		public double getDouble(long timeout, TimeUnit unit)
+				throws InterruptedException, ExecutionException, TimeoutException {
+			return Double.longBitsToDouble(getBits(timeout, unit));
+		}
+	}
+}
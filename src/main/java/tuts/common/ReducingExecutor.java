@@ -0,0 +1,187 @@
+package tuts.common;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * Ejecuta grupos de tareas cuyo único resultado que interesa es una "reducción" de todos sus
+ * resultados: la suma, el mínimo, el máximo...
+ *
+ * <h2>¿Qué problema resuelve?</h2>
+ * Las técnicas del tut3 guardan un objeto por tarea hasta el final: un `Future` por tarea
+ * (`ReturningValuesUsingExecutors_FirstTechnique`), o un nodo en la cola del
+ * `CompletionService` por cada tarea terminada. Si solo queremos la suma, toda esa memoria
+ * sobra, y crece con el número de tareas.
+ *
+ * <h2>¿Cómo funciona?</h2>
+ * <ol>
+ *   <li>Se crea un grupo ({@link Job}) con una operación para combinar resultados, por ejemplo
+ *       {@link #newSumJob()}.</li>
+ *   <li>Cada tarea del grupo (un `LongCallable`, como `() -> a + b`) combina su resultado en un
+ *       `LongAccumulator` al terminar, y no deja nada más. El `LongAccumulator` está "repartido"
+ *       (striped): si varios hilos combinan a la vez, cada uno usa su propia celda en lugar de
+ *       pelearse por la misma variable, y las celdas se combinan al pedir el resultado.</li>
+ *   <li>{@link Job#await()} cierra el grupo (ya no admite más tareas) y espera a que terminen
+ *       todas las tareas enviadas.</li>
+ * </ol>
+ * Cada grupo ocupa lo mismo lleve 10 tareas o 10 millones: un contador de pendientes, el
+ * acumulador y la primera excepción, si la hay.
+ */
+public class ReducingExecutor {
+
+	private final Executor executor;
+
+	public ReducingExecutor(Executor executor) {
+		this.executor = executor;
+	}
+
+	/**
+	 * @return Un grupo que suma los resultados.
+	 */
+	public Job newSumJob() {
+		return newJob(Long::sum, 0L);
+	}
+
+	public Job newMinJob() {
+		return newJob(Math::min, Long.MAX_VALUE);
+	}
+
+	public Job newMaxJob() {
+		return newJob(Math::max, Long.MIN_VALUE);
+	}
+
+	/**
+	 * @param combiner La operación para combinar dos resultados. Tiene que ser asociativa y
+	 *                 conmutativa, porque los resultados se combinan en cualquier orden.
+	 * @param identity El valor inicial, neutro para 'combiner' (0 para la suma, 1 para el producto...).
+	 */
+	public Job newJob(LongBinaryOperator combiner, long identity) {
+		return new Job(combiner, identity);
+	}
+
+	/**
+	 * Un grupo de tareas cuyos resultados se combinan según van terminando.
+	 *
+	 * Las tareas se envían con {@link #submit(LongCallable)} y el resultado se recoge con
+	 * {@link #await()}. Los `submit` tienen que hacerse antes del `await`: normalmente los dos
+	 * desde el mismo hilo.
+	 */
+	public class Job {
+		private final LongAccumulator accumulator;
+		// Tareas pendientes, más 1 mientras el grupo está abierto. Quien lo deja a 0 da el aviso.
+		private final AtomicLong pending = new AtomicLong(1);
+		private final CountDownLatch done = new CountDownLatch(1);
+		private final LongAdder completedTasks = new LongAdder();
+		private final LongAdder failedTasks = new LongAdder();
+		private final AtomicReference<Throwable> firstFailure = new AtomicReference<>();
+		private final AtomicBoolean sealed = new AtomicBoolean();
+
+		private Job(LongBinaryOperator combiner, long identity) {
+			this.accumulator = new LongAccumulator(combiner, identity);
+		}
+
+		/**
+		 * Envía una tarea del grupo. No devuelve nada: su resultado solo sirve para la reducción.
+		 *
+		 * @throws IllegalStateException Si ya se ha llamado a {@link #await()}.
+		 */
+		public void submit(LongCallable task) {
+			long current;
+			do {
+				current = pending.get();
+				if (sealed.get() || current == 0) {
+					throw new IllegalStateException("El grupo ya está cerrado");
+				}
+			} while (!pending.compareAndSet(current, current + 1));
+
+			try {
+				executor.execute(() -> run(task));
+			} catch (RuntimeException e) {
+				// El pool ha rechazado la tarea: ya no está pendiente.
+				taskFinished();
+				throw e;
+			}
+		}
+
+		private void run(LongCallable task) {
+			try {
+				accumulator.accumulate(task.call());
+				completedTasks.increment();
+			} catch (Throwable t) {
+				failedTasks.increment();
+				firstFailure.compareAndSet(null, t);
+			} finally {
+				taskFinished();
+			}
+		}
+
+		private void taskFinished() {
+			if (pending.decrementAndGet() == 0) {
+				done.countDown();
+			}
+		}
+
+		/**
+		 * Cierra el grupo y espera a que terminen todas sus tareas.
+		 *
+		 * @return La reducción de los resultados de todas las tareas.
+		 * @throws ExecutionException Si alguna tarea falló (con la primera excepción como causa).
+		 */
+		public long await() throws InterruptedException, ExecutionException {
+			seal();
+			done.await();
+			return result();
+		}
+
+		/**
+		 * Igual que {@link #await()}, pero sin esperar más de 'timeout'. El grupo queda cerrado
+		 * aunque se agote el tiempo, y se puede volver a esperar.
+		 */
+		public long await(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+			seal();
+			if (!done.await(timeout, unit)) {
+				throw new TimeoutException(pending.get() + " tareas sin terminar");
+			}
+			return result();
+		}
+
+		/**
+		 * @return La reducción de los resultados de las tareas terminadas hasta ahora (parcial).
+		 */
+		public long currentValue() {
+			return accumulator.get();
+		}
+
+		public long completedTasks() {
+			return completedTasks.sum();
+		}
+
+		public long failedTasks() {
+			return failedTasks.sum();
+		}
+
+		private void seal() {
+			if (sealed.compareAndSet(false, true)) {
+				// Se retira el "+1" del grupo abierto; si ya no quedaba ninguna tarea, esto da el aviso.
+				taskFinished();
+			}
+		}
+
+		private long result() throws ExecutionException {
+			Throwable failure = firstFailure.get();
+			if (failure != null) {
+				throw new ExecutionException(failedTasks.sum() + " tareas fallaron; la primera:", failure);
+			}
+			return accumulator.get();
+		}
+	}
+}
@@ -0,0 +1,226 @@
+package tuts.common;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Una "celda" de resultado de un solo uso: un hilo (el productor) deja el valor una vez, y
+ * cualquier número de hilos (los consumidores) lo esperan y lo leen.
+ *
+ * <h2>¿Qué problema resuelve?</h2>
+ * `ValueReturningTaskA` hace lo mismo con `synchronized`, `wait()` y `notify()`, y tiene dos
+ * problemas:
+ * <ul>
+ *   <li>`notify()` despierta a UN solo consumidor: si hay varios esperando, el resto se queda
+ *       dormido para siempre.</li>
+ *   <li>Cada lectura coge el monitor del objeto, incluso cuando el valor ya está publicado y
+ *       no hay nada que esperar. Con muchos lectores, se pelean por ese lock.</li>
+ * </ul>
+ *
+ * <h2>¿Cómo funciona?</h2>
+ * <ul>
+ *   <li><b>Publicar:</b> el valor se escribe con un CAS con semántica "release" (todo lo que el
+ *       productor escribió antes es visible para quien lea el valor con "acquire"). Después se
+ *       despierta, con `LockSupport.unpark`, a TODOS los consumidores que estén esperando.</li>
+ *   <li><b>Leer un valor ya publicado:</b> una lectura "acquire" y listo. Sin locks ni CAS:
+ *       cualquier número de lectores lo leen a la vez sin molestarse.</li>
+ *   <li><b>Esperar:</b> el consumidor se apunta en una pila sin locks de hilos en espera y se
+ *       duerme con `LockSupport.park`. Admite esperas con tiempo límite y responde a las
+ *       interrupciones (lanzando `InterruptedException`, en lugar de tragársela).</li>
+ * </ul>
+ * Un consumidor que deja de esperar (por tiempo o interrupción) quita su nodo de la pila, como
+ * en `FutureTask`: aunque muchos hilos la sondeen con tiempos cortos, la pila no crece.
+ *
+ * @param <T> El tipo del resultado.
+ */
+public class ResultCell<T> {
+
+	// Marcas internas: "aún no hay valor" y "el valor publicado es null".
+	private static final Object NONE = new Object();
+	private static final Object NULL = new Object();
+	// Cabeza de la pila de espera cuando ya se ha publicado el valor: nadie más debe apuntarse.
+	private static final WaitNode PUBLISHED = new WaitNode(null);
+
+	private static final VarHandle VALUE;
+	private static final VarHandle WAITERS;
+
+	static {
+		try {
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+			VALUE = lookup.findVarHandle(ResultCell.class, "value", Object.class);
+			WAITERS = lookup.findVarHandle(ResultCell.class, "waiters", WaitNode.class);
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	@SuppressWarnings("unused") // Se accede a través de VALUE.
+	private Object value = NONE;
+	@SuppressWarnings("unused") // Se accede a través de WAITERS.
+	private WaitNode waiters;
+
+	/**
+	 * Publica el valor y despierta a todos los que lo esperan. Solo cuenta la primera llamada.
+	 *
+	 * @return true si este ha sido el valor publicado, false si ya había otro.
+	 */
+	public boolean set(T result) {
+		Object encoded = result == null ? NULL : result;
+		if (VALUE.compareAndExchangeRelease(this, NONE, encoded) != NONE) {
+			return false;
+		}
+		// getAndSet es una operación "volatile" completa: o el consumidor se apuntó antes y
+		// aquí lo vemos, o se apunta después, ve PUBLISHED y no llega a dormirse.
+		WaitNode waiter = (WaitNode) WAITERS.getAndSet(this, PUBLISHED);
+		while (waiter != null) {
+			Thread thread = waiter.thread;
+			if (thread != null) {
+				LockSupport.unpark(thread);
+			}
+			waiter = waiter.next;
+		}
+		return true;
+	}
+
+	/**
+	 * @return true si ya se ha publicado el valor.
+	 */
+	public boolean isDone() {
+		return VALUE.getAcquire(this) != NONE;
+	}
+
+	/**
+	 * @return El valor si ya está publicado, o 'valueIfAbsent' si no. Nunca espera.
+	 */
+	public T getNow(T valueIfAbsent) {
+		Object current = VALUE.getAcquire(this);
+		return current == NONE ? valueIfAbsent : decode(current);
+	}
+
+	/**
+	 * Espera a que se publique el valor y lo devuelve.
+	 *
+	 * @throws InterruptedException Si el hilo es interrumpido mientras espera.
+	 */
+	public T get() throws InterruptedException {
+		Object current = VALUE.getAcquire(this);
+		if (current != NONE) {
+			return decode(current);
+		}
+		return decode(await(false, 0L));
+	}
+
+	/**
+	 * Igual que {@link #get()}, pero sin esperar más de 'timeout'.
+	 *
+	 * @throws TimeoutException Si se agota el tiempo sin que se publique el valor.
+	 */
+	public T get(long timeout, TimeUnit unit) throws InterruptedException, TimeoutException {
+		Object current = VALUE.getAcquire(this);
+		if (current != NONE) {
+			return decode(current);
+		}
+		Object result = await(true, unit.toNanos(timeout));
+		if (result == NONE) {
+			throw new TimeoutException();
+		}
+		return decode(result);
+	}
+
+	/**
+	 * @return El valor publicado (codificado), o NONE si se agotó el tiempo.
+	 */
+	private Object await(boolean timed, long nanos) throws InterruptedException {
+		long deadline = timed ? System.nanoTime() + nanos : 0L;
+		WaitNode node = new WaitNode(Thread.currentThread());
+		// Apuntarse en la pila (un CAS en la cabeza; si falla, otro hilo se apuntó a la vez).
+		for (;;) {
+			WaitNode head = (WaitNode) WAITERS.getVolatile(this);
+			if (head == PUBLISHED) {
+				return VALUE.getAcquire(this);
+			}
+			node.next = head;
+			if (WAITERS.compareAndSet(this, head, node)) {
+				break;
+			}
+		}
+
+		for (;;) {
+			Object current = VALUE.getAcquire(this);
+			if (current != NONE) {
+				return current;
+			}
+			if (Thread.interrupted()) {
+				removeWaiter(node);
+				throw new InterruptedException();
+			}
+			if (timed) {
+				long remaining = deadline - System.nanoTime();
+				if (remaining <= 0) {
+					removeWaiter(node);
+					return NONE;
+				}
+				LockSupport.parkNanos(this, remaining);
+			} else {
+				// park() puede volver sin motivo: por eso se vuelve a comprobar todo en el bucle.
+				LockSupport.park(this);
+			}
+		}
+	}
+
+	/**
+	 * Marca el nodo como abandonado y quita de la pila todos los abandonados que encuentre. Si
+	 * otro hilo cambia la pila a la vez, se vuelve a recorrer desde la cabeza.
+	 */
+	private void removeWaiter(WaitNode node) {
+		node.thread = null;
+		retry:
+		for (;;) {
+			WaitNode pred = null;
+			WaitNode q = (WaitNode) WAITERS.getVolatile(this);
+			while (q != null && q != PUBLISHED) {
+				WaitNode next = q.next;
+				if (q.thread != null) {
+					pred = q;
+				} else if (pred != null) {
+					pred.next = next;
+					if (pred.thread == null) {
+						// El predecesor también se ha ido mientras tanto: puede que no haya servido.
+						continue retry;
+					}
+				} else if (!WAITERS.compareAndSet(this, q, next)) {
+					continue retry;
+				}
+				q = next;
+			}
+			return;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private T decode(Object current) {
+		return current == NULL ? null : (T) current;
+	}
+
+	@Override
+	public String toString() {
+		Object current = VALUE.getAcquire(this);
+		return "ResultCell[" + (current == NONE ? "pendiente" : String.valueOf(decode(current))) + "]";
+	}
+
+	/**
+	 * Un hilo en espera, en la pila de espera.
+	 */
+	private static final class WaitNode {
+		// null cuando el hilo ya ha dejado de esperar (tiempo agotado o interrupción).
+		volatile Thread thread;
+		volatile WaitNode next;
+
+		WaitNode(Thread thread) {
+			this.thread = thread;
+		}
+	}
+}
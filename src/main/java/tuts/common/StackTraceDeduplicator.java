@@ -0,0 +1,199 @@
+package tuts.common;
+
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decide qué fallos merece la pena imprimir completos y cuáles basta con contar.
+ *
+ * <h2>¿Qué problema resuelve?</h2>
+ * Cuando el mismo bug tumba 10.000 tareas, imprimir 10.000 trazas idénticas no aporta nada y
+ * cuesta mucho: `System.out` está sincronizado, así que los hilos hacen cola para escribir y
+ * el propio registro de errores acaba siendo el cuello de botella.
+ *
+ * <h2>¿Cómo funciona?</h2>
+ * <ol>
+ *   <li>Cada excepción se reduce a una "huella" (fingerprint): su tipo y las primeras
+ *       FINGERPRINT_FRAMES líneas de su traza. Dos fallos con la misma huella son, casi
+ *       seguro, el mismo bug.</li>
+ *   <li>La primera vez que aparece una huella, {@link #firstOccurrence(Throwable)} devuelve
+ *       su identificador y el fallo se imprime completo. Las siguientes solo incrementan un
+ *       contador.</li>
+ *   <li>Cada 'summaryInterval', el siguiente fallo repetido imprime un resumen
+ *       "N ocurrencias más". También se imprime al expulsar la huella de la caché y al
+ *       terminar la JVM, para no perder ninguna cuenta.</li>
+ *   <li>La caché de huellas está acotada: al superar 'capacity', se expulsa la huella usada
+ *       hace más tiempo (LRU), así que la memoria no crece aunque aparezcan bugs nuevos.</li>
+ * </ol>
+ * No hay ningún lock global: la caché es un `ConcurrentHashMap` y los contadores son atómicos.
+ * Lo normal es compartir uno solo, {@link #getDefault()}, entre todos los manejadores: así un
+ * mismo bug se imprime una vez aunque lo vean manejadores distintos.
+ */
+public class StackTraceDeduplicator {
+
+	private static final int FINGERPRINT_FRAMES = 5;
+	private static final int DEFAULT_CAPACITY = 256;
+	private static final long DEFAULT_SUMMARY_INTERVAL_MILLIS = 10_000;
+
+	// El que comparten los `ThreadExceptionHandler` que no reciben uno propio.
+	private static volatile StackTraceDeduplicator defaultDeduplicator;
+
+	private final Map<String, SeenTrace> seen = new ConcurrentHashMap<>();
+	private final int capacity;
+	private final long summaryIntervalNanos;
+	private final PrintStream out;
+	private final String label;
+
+	/**
+	 * Quien crea su propio deduplicador es quien llama a {@link #flushSummaries()} al terminar,
+	 * para no perder las cuentas pendientes; el de {@link #getDefault()} ya lo hace solo.
+	 *
+	 * @param label El texto con el que empiezan los resúmenes (el id del manejador).
+	 * @param out Dónde se imprimen los resúmenes.
+	 * @param capacity El máximo de huellas recordadas a la vez.
+	 * @param summaryInterval Cada cuánto, como mucho, se imprime un resumen de cada huella.
+	 */
+	public StackTraceDeduplicator(String label, PrintStream out, int capacity, long summaryInterval, TimeUnit unit) {
+		this.label = label;
+		this.out = out;
+		this.capacity = capacity;
+		this.summaryIntervalNanos = unit.toNanos(summaryInterval);
+	}
+
+	public StackTraceDeduplicator(String label, PrintStream out) {
+		this(label, out, DEFAULT_CAPACITY, DEFAULT_SUMMARY_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * @return El deduplicador compartido, que imprime por consola. Se crea la primera vez que se
+	 *         pide, y es entonces cuando se registra el único "shutdown hook" que imprime las
+	 *         cuentas pendientes al terminar la JVM.
+	 */
+	public static StackTraceDeduplicator getDefault() {
+		StackTraceDeduplicator deduplicator = defaultDeduplicator;
+		if (deduplicator == null) {
+			synchronized (StackTraceDeduplicator.class) {
+				deduplicator = defaultDeduplicator;
+				if (deduplicator == null) {
+					deduplicator = new StackTraceDeduplicator("TODOS", System.out);
+					Runtime.getRuntime().addShutdownHook(
+							new Thread(deduplicator::flushSummaries, "StackTraceSummaries"));
+					defaultDeduplicator = deduplicator;
+				}
+			}
+		}
+		return deduplicator;
+	}
+
+	/**
+	 * Registra un fallo.
+	 *
+	 * @return El identificador de su huella (como {@link #fingerprintId(Throwable)}) si es la
+	 *         primera vez que se ve, y hay que imprimirlo completo; null si es una repetición,
+	 *         que solo se cuenta.
+	 */
+	public String firstOccurrence(Throwable e) {
+		String fingerprint = fingerprint(e);
+		long now = System.nanoTime();
+		SeenTrace trace = seen.get(fingerprint);
+		if (trace == null) {
+			SeenTrace fresh = new SeenTrace(e.getClass().getName(), now);
+			trace = seen.putIfAbsent(fingerprint, fresh);
+			if (trace == null) {
+				if (seen.size() > capacity) {
+					evictLeastRecentlyUsed(fingerprint);
+				}
+				return Integer.toHexString(fingerprint.hashCode());
+			}
+		}
+		// Una repetición: solo se cuenta y, si toca, se resume.
+		trace.lastSeenAt = now;
+		trace.suppressed.incrementAndGet();
+		long lastSummary = trace.lastSummaryAt.get();
+		if (now - lastSummary >= summaryIntervalNanos && trace.lastSummaryAt.compareAndSet(lastSummary, now)) {
+			printSummary(fingerprint, trace);
+		}
+		return null;
+	}
+
+	/**
+	 * Imprime el resumen de todas las huellas con repeticiones pendientes de contar.
+	 */
+	public void flushSummaries() {
+		seen.forEach(this::printSummary);
+	}
+
+	/**
+	 * @return Un identificador corto y estable de la huella de la excepción, para los logs.
+	 */
+	public static String fingerprintId(Throwable e) {
+		return Integer.toHexString(fingerprint(e).hashCode());
+	}
+
+	/**
+	 * La huella: el tipo de la excepción y sus primeras líneas de la traza. No incluye el mensaje,
+	 * que suele llevar datos variables (ids, valores...) aunque el bug sea el mismo.
+	 */
+	private static String fingerprint(Throwable e) {
+		StringBuilder key = new StringBuilder(e.getClass().getName());
+		StackTraceElement[] frames = e.getStackTrace();
+		for (int i = 0; i < Math.min(FINGERPRINT_FRAMES, frames.length); i++) {
+			key.append('|').append(frames[i].getClassName()).append('.').append(frames[i].getMethodName())
+					.append(':').append(frames[i].getLineNumber());
+		}
+		return key.toString();
+	}
+
+	/**
+	 * Expulsa la huella que lleva más tiempo sin verse (sin contar la que se acaba de añadir).
+	 * Solo se recorre la caché cuando aparece una huella nueva, que es lo raro; las repeticiones
+	 * no pagan nada.
+	 */
+	private void evictLeastRecentlyUsed(String justAdded) {
+		String oldestKey = null;
+		long oldestSeenAt = Long.MAX_VALUE;
+		for (Map.Entry<String, SeenTrace> entry : seen.entrySet()) {
+			if (!entry.getKey().equals(justAdded) && entry.getValue().lastSeenAt < oldestSeenAt) {
+				oldestSeenAt = entry.getValue().lastSeenAt;
+				oldestKey = entry.getKey();
+			}
+		}
+		if (oldestKey != null) {
+			SeenTrace evicted = seen.remove(oldestKey);
+			if (evicted != null) {
+				// Sus repeticiones se resumen ahora: si vuelve a aparecer, se imprimirá completa otra vez.
+				printSummary(oldestKey, evicted);
+			}
+		}
+	}
+
+	private void printSummary(String fingerprint, SeenTrace trace) {
+		long count = trace.suppressed.getAndSet(0);
+		if (count > 0) {
+			out.println("####### [MANEJADOR DE EXCEPCIONES: '" + label + "'] " + trace.exceptionType
+					+ " (huella " + Integer.toHexString(fingerprint.hashCode()) + "): " + count
+					+ " ocurrencias más #######");
+		}
+	}
+
+	/**
+	 * Lo que se recuerda de una huella.
+	 */
+	private static class SeenTrace {
+		final String exceptionType;
+		// Repeticiones aún no resumidas.
+		final AtomicLong suppressed = new AtomicLong();
+		final AtomicLong lastSummaryAt;
+		// Solo se usa para elegir a quién expulsar, así que no hace falta que sea exacto.
+		volatile long lastSeenAt;
+
+		SeenTrace(String exceptionType, long now) {
+			this.exceptionType = exceptionType;
+			this.lastSummaryAt = new AtomicLong(now);
+			this.lastSeenAt = now;
+		}
+	}
+}
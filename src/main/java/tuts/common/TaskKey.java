@@ -0,0 +1,51 @@
+package tuts.common;
+
+import java.util.Arrays;
+
+/**
+ * La "identidad" de un cálculo: el tipo de tarea y los datos de entrada que deciden su
+ * resultado. Sirve de clave en `MemoizingCache`.
+ * <p>
+ * Por ejemplo, `new CalculationTaskA(2, 3, 2000)` y `new CalculationTaskA(2, 3, 500)` dan el
+ * mismo resultado (el tiempo de espera no cuenta), así que las dos se identifican con
+ * {@code TaskKey.of(CalculationTaskA.class, 2, 3)}.
+ * <p>
+ * Como `TaskResult`, es inmutable: los datos de entrada se copian al crearla.
+ */
+public final class TaskKey {
+
+	public final Class<?> taskType;
+	private final Object[] inputs;
+	private final int hash;
+
+	private TaskKey(Class<?> taskType, Object[] inputs) {
+		this.taskType = taskType;
+		this.inputs = inputs.clone();
+		// Se calcula una vez: la clave se usa en cada búsqueda en la caché.
+		this.hash = 31 * taskType.hashCode() + Arrays.hashCode(this.inputs);
+	}
+
+	public static TaskKey of(Class<?> taskType, Object... inputs) {
+		return new TaskKey(taskType, inputs);
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (!(obj instanceof TaskKey))
+			return false;
+		TaskKey other = (TaskKey) obj;
+		return hash == other.hash && taskType == other.taskType && Arrays.equals(inputs, other.inputs);
+	}
+
+	@Override
+	public String toString() {
+		return taskType.getSimpleName() + Arrays.toString(inputs);
+	}
+}
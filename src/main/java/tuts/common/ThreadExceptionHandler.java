@@ -24,17 +24,32 @@ import java.lang.Thread.UncaughtExceptionHandler;
  *       Esto establece un manejador solo para ese hilo específico. Un `ThreadFactory` es el
  *       lugar perfecto para hacer esto de forma consistente.</li>
  * </ul>
+ * 
+ * <h2>Fallos repetidos</h2>
+ * Si el mismo bug tumba miles de hilos, imprimir miles de trazas idénticas es más caro que útil.
+ * Por eso el manejador usa un `StackTraceDeduplicator`: la primera vez que aparece un fallo
+ * (mismo tipo de excepción y mismas primeras líneas de la traza) se imprime completo; las
+ * repeticiones solo se cuentan y, de vez en cuando, se imprime un resumen "N ocurrencias más".
+ * Salvo que se le pase uno propio, todos los manejadores comparten el mismo
+ * (`StackTraceDeduplicator.getDefault()`).
  */
 public class ThreadExceptionHandler implements UncaughtExceptionHandler {
 
 	private String handlerId;
+	private final StackTraceDeduplicator deduplicator;
 	
-	public ThreadExceptionHandler(String handlerId) {
+	public ThreadExceptionHandler(String handlerId, StackTraceDeduplicator deduplicator) {
 		this.handlerId = handlerId;
+		this.deduplicator = deduplicator;
+	}
+	
+	public ThreadExceptionHandler(String handlerId) {
+		this(handlerId, StackTraceDeduplicator.getDefault());
 	}
 	
 	public ThreadExceptionHandler() {
 		// Constructor por defecto.
+		this.deduplicator = StackTraceDeduplicator.getDefault();
 	}
 	
 	/**
@@ -47,9 +62,15 @@ public class ThreadExceptionHandler implements UncaughtExceptionHandler {
 	 */
 	@Override
 	public void uncaughtException(Thread t, Throwable e) {
+		// Si ya se ha impreso un fallo igual, este solo se cuenta para el próximo resumen.
+		String fingerprintId = deduplicator.firstOccurrence(e);
+		if (fingerprintId == null) {
+			return;
+		}
 		System.out.println("####### [MANEJADOR DE EXCEPCIONES: '" + getHandlerId() + "'] #######");
 		System.out.println("El hilo '" + t.getName() + "' ha muerto debido a una excepción no capturada.");
 		System.out.println("Excepción: " + e.getClass().getSimpleName() + " - " + e.getMessage());
+		System.out.println("Huella: " + fingerprintId + " (las repeticiones solo se contarán)");
 		System.out.println("Traza de la pila:");
 		e.printStackTrace(System.out); // Imprime la traza completa.
 		System.out.println("#################################################################");
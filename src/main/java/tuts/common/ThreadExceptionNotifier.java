@@ -16,57 +16,37 @@ import java.lang.Thread.UncaughtExceptionHandler;
  */
 public class ThreadExceptionNotifier implements UncaughtExceptionHandler {
 
+	private final ExceptionReportPipeline pipeline;
+
+	/**
+	 * Usa el pipeline compartido, que entrega las notificaciones por consola.
+	 */
+	public ThreadExceptionNotifier() {
+		this(ExceptionReportPipeline.getDefault());
+	}
+
+	/**
+	 * @param pipeline El pipeline que agrupa y entrega las notificaciones (por ejemplo, a un fichero).
+	 */
+	public ThreadExceptionNotifier(ExceptionReportPipeline pipeline) {
+		this.pipeline = pipeline;
+	}
+
 	/**
 	 * Este es el método que la JVM llama cuando un hilo muere por una excepción no capturada.
 	 * 
-	 * La única responsabilidad de este método es delegar la acción a un método más específico.
+	 * Antes, aquí se montaba y se "enviaba" el email, y el hilo que moría esperaba a que
+	 * terminase. Ahora solo deja un pequeño registro del fallo en el buffer del pipeline y
+	 * termina enseguida: el envío lo hace el hilo de fondo del pipeline, agrupando los fallos
+	 * repetidos. Si el buffer está lleno, el fallo se cuenta como descartado, pero el hilo
+	 * no se bloquea nunca.
 	 * 
 	 * @param t El hilo que falló.
 	 * @param e La excepción (`Throwable`) que causó el fallo.
 	 */
 	@Override
 	public void uncaughtException(Thread t, Throwable e) {
-		// Llama al método privado que contiene la lógica de notificación.
-		sendNotificationEmail(t, e);
-	}
-	
-	/**
-	 * Un método privado que simula la lógica para enviar un correo electrónico de notificación.
-	 * 
-	 * @param t El hilo que falló.
-	 * @param e La excepción que ocurrió.
-	 */
-	private void sendNotificationEmail(Thread t, Throwable e) {
-		// En una aplicación real, aquí iría el código para conectarse a un servidor de correo
-		// y enviar un email con detalles útiles para el diagnóstico.
-		
-		String subject = "ERROR CRÍTICO: El hilo '" + t.getName() + "' ha fallado";
-		
-		// Un buen cuerpo de email incluiría:
-		// - El nombre del hilo.
-		// - La fecha y hora del error.
-		// - El tipo de excepción.
-		// - El mensaje de la excepción.
-		// - La traza de la pila completa (stack trace) para poder depurar.
-		StringBuilder body = new StringBuilder();
-		body.append("Un error crítico ha ocurrido en la aplicación.\n\n");
-		body.append("Detalles del Hilo:\n");
-		body.append("  Nombre: ").append(t.getName()).append("\n");
-		body.append("  ID: ").append(t.getId()).append("\n\n");
-		body.append("Detalles del Error:\n");
-		body.append("  Tipo: ").append(e.getClass().getName()).append("\n");
-		body.append("  Mensaje: ").append(e.getMessage()).append("\n\n");
-		body.append("Stack Trace:\n");
-		// Aquí se adjuntaría la traza de la pila.
-		// e.printStackTrace(printWriter);
-		
-		// Para este ejemplo, simplemente imprimimos un mensaje en la consola que simula
-		// el envío de la notificación.
-		System.out.println("--- SIMULACIÓN DE ENVÍO DE EMAIL ---");
-		System.out.println("Destinatario: admin@my-app.com");
-		System.out.println("Asunto: " + subject);
-		System.out.println("Cuerpo del mensaje (resumen): \n" + body.toString());
-		System.out.println("------------------------------------");
+		pipeline.report(t, e);
 	}
 
 }
@@ -12,6 +12,9 @@ import java.util.concurrent.TimeUnit;
  * Patrón Productor-Consumidor:
  * - El hilo que ejecuta `run()` es el PRODUCTOR: calcula la `sum`.
  * - El hilo que llama a `getSum()` es el CONSUMIDOR: espera y consume la `sum`.
+ * <p>
+ * `ResultCell` hace lo mismo sin locks: despierta a todos los consumidores (no solo a uno) y,
+ * una vez publicado el valor, leerlo no coge ningún monitor.
  */
 public class ValueReturningTaskA implements Runnable {
 